@@ -0,0 +1,101 @@
+package com.telerivet;
+
+import java.lang.reflect.Constructor;
+import java.security.InvalidParameterException;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+    Per-item cost of creating the entities of a 200-item messages page, as APICursor.next()
+    does: through the EntityFactory registry, versus the Constructor lookup and
+    Constructor.newInstance() call that APICursor used before.
+
+    <pre>
+    mvn -P jmh test-compile exec:exec -Djmh.args="EntityCreationBenchmark"
+    </pre>
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCreationBenchmark
+{
+    private static final int PAGE_SIZE = 200;
+
+    private TelerivetAPI api;
+    private JSONArray page;
+
+    @Setup
+    public void setUp()
+    {
+        api = new TelerivetAPI("key");
+        page = new JSONArray();
+        for (int i = 0; i < PAGE_SIZE; i++)
+        {
+            page.put(new JSONObject()
+                .put("id", "SM" + i)
+                .put("phone_id", "PN1")
+                .put("contact_id", "CT" + i)
+                .put("direction", "outgoing")
+                .put("status", "delivered")
+                .put("content", "Hello " + i)
+                .put("from_number", "+16505550123")
+                .put("to_number", "+1650555" + (1000 + i))
+                .put("time_created", 1700000000 + i)
+                .put("vars", new JSONObject().put("order_id", i)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void entityFactory(Blackhole blackhole)
+    {
+        EntityFactory<Message> factory = api.getEntityFactory(Message.class);
+        for (int i = 0; i < PAGE_SIZE; i++)
+        {
+            blackhole.consume(factory.create(api, page.getJSONObject(i), true));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void reflectiveConstructor(Blackhole blackhole) throws Exception
+    {
+        Constructor<?> ctor = getConstructor(Message.class);
+        for (int i = 0; i < PAGE_SIZE; i++)
+        {
+            blackhole.consume(ctor.newInstance(api, page.getJSONObject(i), true));
+        }
+    }
+
+    /**
+        The constructor lookup APICursor did once per cursor before EntityFactory.
+    */
+    private static Constructor<?> getConstructor(Class<?> clazz)
+    {
+        Constructor<?>[] ctors = clazz.getDeclaredConstructors();
+        for (int i = 0; i < ctors.length; i++)
+        {
+            if (ctors[i].getParameterTypes().length == 3)
+            {
+                return ctors[i];
+            }
+        }
+        throw new InvalidParameterException("Class " + clazz.getName() + " does not have 3 argument constructor.");
+    }
+}
@@ -0,0 +1,141 @@
+package com.telerivet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+    Time and allocation of building one GET request with nested query parameters:
+    TelerivetAPI.buildRequest, versus the URLEncodedUtils, Base64 and User-Agent code
+    that doRequest ran for every request before.
+
+    <pre>
+    mvn -P jmh test-compile exec:exec -Djmh.args="RequestBuildingBenchmark -prof gc"
+    </pre>
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark
+{
+    private static final String API_KEY = "d3l1bGxXUjVBZ1dSZ0xWS3BJRVlUQ0VuT1BPbWJwY1Q";
+    private static final String API_URL = "https://api.telerivet.com/v1";
+    private static final String PATH = "/projects/PJ2ad2b3c3d4e5f6/messages";
+
+    private TelerivetAPI api;
+    private JSONObject params;
+
+    @Setup
+    public void setUp()
+    {
+        api = new TelerivetAPI(API_KEY, API_URL);
+        params = new JSONObject()
+            .put("direction", "incoming")
+            .put("message_type", "sms")
+            .put("sort", "default")
+            .put("sort_dir", "desc")
+            .put("page_size", 200)
+            .put("time_created", new JSONObject().put("min", 1700000000L).put("max", 1700086400L))
+            .put("vars", new JSONObject().put("order_id", "A-1234").put("region", "north east"))
+            .put("label_ids", new JSONArray().put("LB1").put("LB2").put("LB3"))
+            .put("marker", "eyJ0IjoxNzAwMDAwMDAwLCJpZCI6IlNNMTIzNCJ9");
+    }
+
+    @Benchmark
+    public Object buildRequest() throws IOException
+    {
+        return api.buildRequest("GET", PATH, params);
+    }
+
+    @Benchmark
+    public Object previousRequestBuilding() throws IOException
+    {
+        String url = API_URL + PATH + "?" + URLEncodedUtils.format(encodeParams(params), "UTF-8");
+        HttpGet request = new HttpGet(url);
+
+        Base64 base64 = new Base64();
+        String authString = base64.encodeToString((API_KEY + ":").getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Authorization", "Basic " + authString);
+        request.setHeader("User-Agent", "Telerivet Java Client/" + TelerivetAPI.CLIENT_VERSION + " Java/" + System.getProperty("java.version"));
+        return request;
+    }
+
+    private static List<BasicNameValuePair> encodeParams(JSONObject jsonOptions)
+    {
+        List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
+
+        Iterator<String> keysIter = jsonOptions.keys();
+        while (keysIter.hasNext())
+        {
+            String key = keysIter.next();
+            encodeParamsRec(key, jsonOptions.get(key), params);
+        }
+        return params;
+    }
+
+    private static void encodeParamsRec(String paramName, Object value, List<BasicNameValuePair> paramArr)
+    {
+        if (value == null || value.equals(JSONObject.NULL))
+        {
+            return;
+        }
+        if (value instanceof JSONArray)
+        {
+            JSONArray arr = (JSONArray) value;
+            int len = arr.length();
+            for (int i = 0; i < len; i++)
+            {
+                encodeParamsRec(paramName + "[" + i + "]", arr.get(i), paramArr);
+            }
+        }
+        else if (value instanceof JSONObject)
+        {
+            JSONObject obj = (JSONObject) value;
+            Iterator<String> keysIter = obj.keys();
+            while (keysIter.hasNext())
+            {
+                String key = keysIter.next();
+                encodeParamsRec(paramName + "[" + key + "]", obj.get(key), paramArr);
+            }
+        }
+        else if (value instanceof Number)
+        {
+            Number num = (Number) value;
+            int intValue = num.intValue();
+            if ((double) intValue == num.doubleValue())
+            {
+                paramArr.add(new BasicNameValuePair(paramName, "" + intValue));
+            }
+            else
+            {
+                paramArr.add(new BasicNameValuePair(paramName, value.toString()));
+            }
+        }
+        else
+        {
+            paramArr.add(new BasicNameValuePair(paramName, value.toString()));
+        }
+    }
+}
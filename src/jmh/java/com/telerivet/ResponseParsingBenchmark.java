@@ -0,0 +1,131 @@
+package com.telerivet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+    Latency and allocation of parsing a large page of messages: reading the whole body
+    into a String with EntityUtils.toString and then parsing it, as doRequest did before,
+    versus parsing it from the response stream through ResponseReader. doRequest measures
+    the whole request path with an in-memory transport.
+
+    <pre>
+    mvn -P jmh test-compile exec:exec -Djmh.args="ResponseParsingBenchmark -prof gc"
+    </pre>
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark
+{
+    private static final JSONParserConfiguration STRICT_PARSER_CONFIGURATION = new JSONParserConfiguration().withStrictMode(true);
+
+    @Param({"200"})
+    public int pageSize;
+
+    private byte[] body;
+    private TelerivetAPI api;
+
+    @Setup
+    public void setUp()
+    {
+        JSONArray data = new JSONArray();
+        for (int i = 0; i < pageSize; i++)
+        {
+            data.put(new JSONObject()
+                .put("id", "SM" + i)
+                .put("phone_id", "PN1")
+                .put("contact_id", "CT" + i)
+                .put("direction", "incoming")
+                .put("status", "received")
+                .put("message_type", "sms")
+                .put("content", "Reply " + i + ": the quick brown fox jumps over the lazy dog, café ✓")
+                .put("from_number", "+1650555" + (1000 + i))
+                .put("to_number", "+16505550123")
+                .put("time_created", 1700000000 + i)
+                .put("starred", false)
+                .put("label_ids", new JSONArray().put("LB1").put("LB2"))
+                .put("vars", new JSONObject().put("order_id", i).put("note", "note " + i)));
+        }
+        body = new JSONObject().put("data", data).put("truncated", true).put("next_marker", "abc").toString()
+            .getBytes(StandardCharsets.UTF_8);
+
+        api = new TelerivetAPI("key", "https://api.telerivet.com/v1", new InMemoryTransport(body));
+    }
+
+    @Benchmark
+    public Object stringBody() throws IOException
+    {
+        String responseStr = EntityUtils.toString(new InputStreamEntity(new ByteArrayInputStream(body), body.length,
+            ContentType.APPLICATION_JSON));
+        return new JSONTokener(responseStr, STRICT_PARSER_CONFIGURATION).nextValue();
+    }
+
+    @Benchmark
+    public Object streamingBody() throws IOException
+    {
+        try (ResponseReader reader = new ResponseReader(new ByteArrayInputStream(body)))
+        {
+            Object result = new JSONTokener(reader, STRICT_PARSER_CONFIGURATION).nextValue();
+            reader.drain();
+            return result;
+        }
+    }
+
+    @Benchmark
+    public Object doRequest() throws IOException
+    {
+        return api.doRequest("GET", "/projects/PJ1/messages");
+    }
+
+    private static class InMemoryTransport implements HttpTransport
+    {
+        private final byte[] body;
+
+        InMemoryTransport(byte[] body)
+        {
+            this.body = body;
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request)
+        {
+            return new TransportResponse(200, null, new ByteArrayInputStream(body));
+        }
+
+        @Override
+        public CompletableFuture<TransportResponse> executeAsync(TransportRequest request)
+        {
+            return CompletableFuture.completedFuture(execute(request));
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
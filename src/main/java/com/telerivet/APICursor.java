@@ -1,12 +1,20 @@
 package com.telerivet;
 
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.io.InterruptedIOException;
 import java.security.InvalidParameterException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -29,9 +37,17 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
     private String nextMarker = null;
     private int limit = NO_LIMIT;
     private int offset = 0;
-    private Constructor ctor;
+    private EntityFactory<T> factory;
+    private int prefetchDepth = 0;
+    private PagePrefetcher prefetcher;
+    private Deadline deadline;
 
     public APICursor(TelerivetAPI api, Class<T> clazz, String path, JSONObject params)
+    {
+        this(api, api.getEntityFactory(clazz), path, params);
+    }
+
+    public APICursor(TelerivetAPI api, EntityFactory<T> factory, String path, JSONObject params)
     {
         if (params == null)
         {
@@ -43,28 +59,46 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
             throw new InvalidParameterException("Cannot construct APICursor with 'count' parameter. Call the count() method instead.");
         }
 
-        this.ctor = clazz == JSONObject.class ? null : getConstructor(clazz);
+        this.factory = factory;
         this.api = api;
         this.path = path;
         this.params = params;
     }
 
-    private Constructor getConstructor(Class<T> clazz)
+    public APICursor<T> limit(int limit)
     {
-        Constructor[] ctors = clazz.getDeclaredConstructors();
-        for (int i = 0; i < ctors.length; i++)
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+        Enables background prefetching of up to <code>depth</code> pages ahead of the page
+        currently being iterated. As soon as a page arrives, the request for the following
+        page is sent asynchronously, so network time overlaps with processing of the current
+        page. Errors from prefetched requests are thrown from hasNext() or next().
+
+        Must be called before iteration starts.
+    */
+    public APICursor<T> prefetch(int depth)
+    {
+        if (data != null)
         {
-            if (ctors[i].getParameterTypes().length == 3)
-            {
-                return ctors[i];
-            }
-	}
-        throw new InvalidParameterException("Class " +clazz.getName()+ " does not have 3 argument constructor.");
+            throw new IllegalStateException("prefetch() must be called before iterating the cursor");
+        }
+        this.prefetchDepth = depth;
+        return this;
     }
 
-    public APICursor limit(int limit)
+    /**
+        Sets a deadline for all requests made by this cursor, including count() and
+        prefetched pages, e.g. <code>cursor.deadline(Deadline.after(60000))</code> to limit
+        the total time spent loading an export. A page that has not loaded when the deadline
+        expires is cancelled, and iteration fails with a RuntimeException caused by
+        TelerivetDeadlineExceededException.
+    */
+    public APICursor<T> deadline(Deadline deadline)
     {
-        this.limit = limit;
+        this.deadline = deadline;
         return this;
     }
 
@@ -74,7 +108,7 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
         {
             JSONObject requestParams = copyParams();
             requestParams.put("count", 1);
-            JSONObject res = (JSONObject) api.doRequest("GET", path, requestParams);
+            JSONObject res = (JSONObject) doRequest(requestParams);
             count = res.getInt("count");
         }
         return count;
@@ -142,18 +176,7 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
             pos += 1;
             offset += 1;
 
-            try
-            {
-                if (ctor != null) {
-                    return (T)ctor.newInstance(api, itemData, true);
-                } else {
-                    return (T)itemData;
-                }
-            }
-            catch (Exception ex)
-            {
-                throw new RuntimeException(ex);
-            }
+            return createItem(itemData);
         }
         else
         {
@@ -161,6 +184,38 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
         }
     }
 
+    private T createItem(JSONObject itemData)
+    {
+        return factory.create(api, itemData, true);
+    }
+
+    /**
+        Returns a lazy Stream over the results of this cursor. Pages are fetched as the
+        stream is consumed.
+
+        <p>If the stream is made parallel, the cursor hands out each fetched page to another
+        thread, so operations like filter/map/collect run on several pages at once while
+        the next page is being fetched. At most <code>maxPagesInFlight</code> pages are
+        handed out and not yet fully processed at any time. Splitting waits up to 1 second
+        for a page to finish; if none does, the rest of the cursor is processed by the
+        thread that tried to split it.</p>
+    */
+    public Stream<T> stream(int maxPagesInFlight)
+    {
+        return StreamSupport.stream(new CursorSpliterator(maxPagesInFlight), false);
+    }
+
+    public Stream<T> stream()
+    {
+        return stream(ForkJoinPool.getCommonPoolParallelism() + 1);
+    }
+
+    @Override
+    public Spliterator<T> spliterator()
+    {
+        return new CursorSpliterator(ForkJoinPool.getCommonPoolParallelism() + 1);
+    }
+
     private JSONObject copyParams()
     {
         JSONObject requestParams = new JSONObject();
@@ -177,34 +232,191 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
         return requestParams;
     }
 
-    private void loadNextPage()
+    private JSONObject getPageParams(String marker)
     {
         JSONObject requestParams = copyParams();
 
-        if (nextMarker != null)
+        if (marker != null)
         {
-            requestParams.put("marker", nextMarker);
+            requestParams.put("marker", marker);
         }
 
         if (limit != NO_LIMIT && !requestParams.has("page_size"))
         {
             requestParams.put("page_size", Math.min(limit, 200));
         }
+        return requestParams;
+    }
+
+    @SuppressWarnings("try")
+    private Object doRequest(JSONObject requestParams) throws IOException
+    {
+        if (deadline == null)
+        {
+            return api.doRequest("GET", path, requestParams);
+        }
+        try (Deadline.Scope scope = deadline.enter())
+        {
+            return api.doRequest("GET", path, requestParams);
+        }
+    }
+
+    @SuppressWarnings("try")
+    private CompletableFuture<Object> doRequestAsync(JSONObject requestParams)
+    {
+        if (deadline == null)
+        {
+            return api.doRequestAsync("GET", path, requestParams);
+        }
+        try (Deadline.Scope scope = deadline.enter())
+        {
+            return api.doRequestAsync("GET", path, requestParams);
+        }
+    }
+
+    private void loadNextPage()
+    {
+        CursorPageFlightEvent flightEvent = new CursorPageFlightEvent();
+        flightEvent.begin();
 
         JSONObject response;
-        try
+        if (prefetchDepth > 0)
         {
-            response = (JSONObject) api.doRequest("GET", path, requestParams);
+            if (prefetcher == null)
+            {
+                prefetcher = new PagePrefetcher(prefetchDepth);
+            }
+            response = prefetcher.take();
+            if (response == null)
+            {
+                // all pages were already returned
+                response = new JSONObject().put("data", new JSONArray()).put("truncated", false);
+            }
         }
-        catch (IOException ex)
+        else
         {
-            throw new RuntimeException(ex);
+            try
+            {
+                response = (JSONObject) doRequest(getPageParams(nextMarker));
+            }
+            catch (IOException ex)
+            {
+                throw new RuntimeException(ex);
+            }
         }
 
         data = response.getJSONArray("data");
         truncated = response.optBoolean("truncated", false);
         nextMarker = response.optString("next_marker");
         pos = 0;
+
+        flightEvent.end();
+        if (flightEvent.shouldCommit())
+        {
+            flightEvent.pathTemplate = Util.getPathTemplate(path);
+            flightEvent.pageSize = data.length();
+            flightEvent.truncated = truncated;
+            flightEvent.prefetched = prefetchDepth > 0;
+            flightEvent.commit();
+        }
+    }
+
+    /**
+        Fetches pages in the background, following the next_marker chain, and keeps up to
+        <code>depth</code> completed pages in a buffer until the cursor consumes them.
+    */
+    private class PagePrefetcher
+    {
+        private final int depth;
+        private final ArrayDeque<JSONObject> buffer = new ArrayDeque<JSONObject>();
+        private Throwable failure; // thrown once the pages before it have been taken
+        private String marker = null;
+        private int itemsFetched = 0;
+        private boolean inFlight = false;
+        private boolean finished = false;
+
+        PagePrefetcher(int depth)
+        {
+            this.depth = depth;
+        }
+
+        /**
+            Returns the next page, waiting for it if necessary, or null if all pages have
+            been returned. Throws the error of a failed request (again on every later call)
+            once the pages fetched before it have been returned.
+        */
+        synchronized JSONObject take()
+        {
+            if (buffer.isEmpty() && !inFlight && !finished)
+            {
+                fetch();
+            }
+
+            while (buffer.isEmpty())
+            {
+                if (failure != null)
+                {
+                    throw (failure instanceof RuntimeException) ? (RuntimeException) failure : new RuntimeException(failure);
+                }
+                if (finished && !inFlight)
+                {
+                    return null;
+                }
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(new InterruptedIOException("Interrupted while waiting for page"));
+                }
+            }
+
+            JSONObject page = buffer.poll();
+
+            if (!inFlight && !finished && buffer.size() < depth)
+            {
+                fetch();
+            }
+            return page;
+        }
+
+        // called while holding the lock
+        private void fetch()
+        {
+            inFlight = true;
+            doRequestAsync(getPageParams(marker)).whenComplete((res, error) -> {
+                onPage(res, error);
+            });
+        }
+
+        private synchronized void onPage(Object res, Throwable error)
+        {
+            inFlight = false;
+            if (error != null)
+            {
+                failure = TelerivetAPI.unwrapCompletionException(error);
+                finished = true;
+            }
+            else
+            {
+                JSONObject response = (JSONObject) res;
+                buffer.add(response);
+                itemsFetched += response.getJSONArray("data").length();
+                marker = response.optString("next_marker");
+                if (!response.optBoolean("truncated", false) || (limit != NO_LIMIT && itemsFetched >= limit))
+                {
+                    finished = true;
+                }
+            }
+
+            if (!finished && buffer.size() < depth)
+            {
+                fetch();
+            }
+            notifyAll();
+        }
     }
 
     @Override
@@ -212,4 +424,235 @@ public class APICursor<T> implements Iterator<T>, Iterable<T> {
     {
         return this;
     }
+
+    /**
+        Spliterator over the remaining items of the cursor. trySplit() hands out the rest of
+        the current page (fetching the next page first if the current one has been used up)
+        as a separate spliterator that can be processed by another thread.
+    */
+    private class CursorSpliterator implements Spliterator<T>
+    {
+        private final int maxPagesInFlight;
+        private int pagesInFlight = 0;
+
+        CursorSpliterator(int maxPagesInFlight)
+        {
+            this.maxPagesInFlight = Math.max(1, maxPagesInFlight);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            if (!hasNext())
+            {
+                return false;
+            }
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            if (limit != NO_LIMIT && offset >= limit)
+            {
+                return null;
+            }
+
+            if (!awaitPageSlot())
+            {
+                return null;
+            }
+
+            if (data == null || (pos >= data.length() && truncated))
+            {
+                try
+                {
+                    loadNextPage();
+                }
+                catch (RuntimeException ex)
+                {
+                    pageDone();
+                    throw ex;
+                }
+            }
+
+            int end = data.length();
+            if (limit != NO_LIMIT)
+            {
+                end = Math.min(end, pos + (limit - offset));
+            }
+            if (end <= pos)
+            {
+                pageDone();
+                return null;
+            }
+
+            PageSpliterator split = new PageSpliterator(this, data, pos, end);
+            offset += end - pos;
+            pos = end;
+            return split;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | NONNULL;
+        }
+
+        /**
+            Reserves a slot for a page to hand out, waiting up to 1 second for one to become
+            free. Returns false if none did, so the stream never holds more than
+            maxPagesInFlight split pages.
+        */
+        private boolean awaitPageSlot()
+        {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            try
+            {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    public boolean block() throws InterruptedException
+                    {
+                        synchronized (CursorSpliterator.this)
+                        {
+                            long remaining = deadline - System.nanoTime();
+                            if (!isReleasable() && remaining > 0)
+                            {
+                                TimeUnit.NANOSECONDS.timedWait(CursorSpliterator.this, remaining);
+                            }
+                        }
+                        return isReleasable();
+                    }
+
+                    public boolean isReleasable()
+                    {
+                        synchronized (CursorSpliterator.this)
+                        {
+                            return pagesInFlight < maxPagesInFlight || System.nanoTime() >= deadline;
+                        }
+                    }
+                });
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (this)
+            {
+                if (pagesInFlight >= maxPagesInFlight)
+                {
+                    return false;
+                }
+                pagesInFlight++;
+                return true;
+            }
+        }
+
+        synchronized void pageDone()
+        {
+            pagesInFlight--;
+            notifyAll();
+        }
+    }
+
+    /**
+        Spliterator over a range of items from one page that has already been fetched.
+    */
+    private class PageSpliterator implements Spliterator<T>
+    {
+        private final CursorSpliterator parent;
+        private final JSONArray page;
+        private int index;
+        private final int end;
+        private boolean done = false;
+
+        PageSpliterator(CursorSpliterator parent, JSONArray page, int start, int end)
+        {
+            this.parent = parent;
+            this.page = page;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            if (index >= end)
+            {
+                finish();
+                return false;
+            }
+            T item = createItem(page.getJSONObject(index));
+            index++;
+            action.accept(item);
+            if (index >= end)
+            {
+                finish();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action)
+        {
+            try
+            {
+                while (index < end)
+                {
+                    T item = createItem(page.getJSONObject(index));
+                    index++;
+                    action.accept(item);
+                }
+            }
+            finally
+            {
+                finish();
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            int mid = (index + end) >>> 1;
+            if (mid <= index)
+            {
+                return null;
+            }
+            // the prefix shares this page's in-flight slot, which is released when the suffix finishes
+            PageSpliterator prefix = new PageSpliterator(null, page, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | NONNULL | SIZED | SUBSIZED;
+        }
+
+        private void finish()
+        {
+            if (!done)
+            {
+                done = true;
+                if (parent != null)
+                {
+                    parent.pageDone();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,518 @@
+package com.telerivet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+    HttpTransport backed by Apache HttpClient 4.x with a pool of persistent HTTP/1.1
+    connections. Each in-flight request leases its own connection from the pool.
+    Gzip-encoded responses are decompressed transparently.
+
+    <p>The connection and socket timeouts of each request are applied per request, and a
+    request whose deadline expires is aborted, closing its connection.</p>
+
+    <p>Use {@link #builder()} to size the pool for the number of threads sharing a
+    TelerivetAPI client, and {@link #getPoolStats()} to see how the pool is being used.</p>
+*/
+public class ApacheHttpTransport implements HttpTransport
+{
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+    public static final int DEFAULT_MAX_TOTAL = 20;
+    public static final long DEFAULT_MAX_IDLE_TIME = 30000; // ms
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2000; // ms
+
+    private final int maxPerRoute;
+    private final int maxTotal;
+    private final long connectionTimeToLive;
+    private final long maxIdleTime;
+    private final int validateAfterInactivity;
+    private final int connectionRequestTimeout;
+    private final RequestConfig defaultRequestConfig;
+    private final Executor asyncExecutor;
+
+    private volatile PoolingHttpClientConnectionManager connectionManager;
+    private volatile CloseableHttpClient httpClient;
+    private ExecutorService defaultAsyncExecutor;
+    private volatile boolean closed;
+
+    public ApacheHttpTransport()
+    {
+        this(builder());
+    }
+
+    private ApacheHttpTransport(Builder builder)
+    {
+        this.maxPerRoute = builder.maxPerRoute;
+        this.maxTotal = builder.maxTotal;
+        this.connectionTimeToLive = builder.connectionTimeToLive;
+        this.maxIdleTime = builder.maxIdleTime;
+        this.validateAfterInactivity = builder.validateAfterInactivity;
+        this.connectionRequestTimeout = builder.connectionRequestTimeout;
+        this.asyncExecutor = builder.asyncExecutor;
+        this.defaultRequestConfig = RequestConfig.custom()
+            .setConnectTimeout(TelerivetAPI.HTTP_CONNECTION_TIMEOUT)
+            .setSocketTimeout(TelerivetAPI.HTTP_SOCKET_TIMEOUT)
+            .setConnectionRequestTimeout(connectionRequestTimeout)
+            .build();
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException
+    {
+        HttpRequestBase httpRequest = toHttpRequest(request);
+        httpRequest.setConfig(getRequestConfig(request));
+
+        Deadline deadline = request.getDeadline();
+        ScheduledFuture<?> abortTask = deadline != null ? deadline.whenExpired(httpRequest::abort) : null;
+
+        HttpResponse response;
+        try
+        {
+            response = getHttpClient().execute(httpRequest);
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            if (abortTask != null)
+            {
+                abortTask.cancel(false);
+            }
+            throw ex;
+        }
+
+        Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        for (Header header : response.getAllHeaders())
+        {
+            List<String> values = headers.get(header.getName());
+            if (values == null)
+            {
+                values = new ArrayList<String>();
+                headers.put(header.getName(), values);
+            }
+            values.add(header.getValue());
+        }
+
+        HttpEntity entity = response.getEntity();
+        InputStream body = entity != null ? entity.getContent() : null;
+        if (abortTask != null)
+        {
+            // the deadline also covers reading the response body
+            if (body != null)
+            {
+                body = Deadline.cancelOnClose(body, abortTask);
+            }
+            else
+            {
+                abortTask.cancel(false);
+            }
+        }
+
+        return new TransportResponse(response.getStatusLine().getStatusCode(), headers, body);
+    }
+
+    /**
+        Runs the blocking request on the transport's async executor. By default this is a
+        pool with one thread per pooled connection, so requests beyond the pool size wait in
+        a queue rather than each occupying a thread.
+    */
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(final TransportRequest request)
+    {
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<TransportResponse>();
+        Executor executor;
+        try
+        {
+            executor = getAsyncExecutor();
+        }
+        catch (IOException ex)
+        {
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        try
+        {
+            executor.execute(() -> {
+                try
+                {
+                    result.complete(execute(request));
+                }
+                catch (Throwable ex)
+                {
+                    result.completeExceptionally(ex);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex)
+        {
+            result.completeExceptionally(new IOException("Transport is closed", ex));
+        }
+        return result;
+    }
+
+    /**
+        Returns a snapshot of the number of leased, available and pending connections
+        across all routes.
+    */
+    public ConnectionPoolStats getPoolStats()
+    {
+        if (connectionManager == null)
+        {
+            return new ConnectionPoolStats(0, 0, 0, maxTotal);
+        }
+        PoolStats stats = connectionManager.getTotalStats();
+        return new ConnectionPoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    /**
+        Closes the pooled connections and shuts down the default async executor. Requests
+        made after the transport is closed fail with an IOException.
+    */
+    @Override
+    public synchronized void close()
+    {
+        closed = true;
+        if (httpClient != null)
+        {
+            try
+            {
+                httpClient.close();
+            }
+            catch (IOException ex)
+            {
+                // connections are discarded anyway
+            }
+            httpClient = null;
+            connectionManager = null;
+        }
+        if (defaultAsyncExecutor != null)
+        {
+            defaultAsyncExecutor.shutdown();
+            defaultAsyncExecutor = null;
+        }
+    }
+
+    private HttpRequestBase toHttpRequest(TransportRequest request) throws IOException
+    {
+        String method = request.getMethod();
+        String url = request.getUrl();
+
+        HttpRequestBase httpRequest;
+        if ("POST".equals(method) || "PUT".equals(method))
+        {
+            HttpEntityEnclosingRequestBase entityRequest;
+            if ("PUT".equals(method))
+            {
+                entityRequest = new HttpPut(url);
+            }
+            else
+            {
+                entityRequest = new HttpPost(url);
+            }
+
+            final RequestBody body = request.getBody();
+            if (body != null && body.getContentLength() >= 0)
+            {
+                entityRequest.setEntity(new ByteArrayEntity(body.toByteArray()));
+            }
+            else if (body != null)
+            {
+                entityRequest.setEntity(new RequestBodyEntity(body));
+            }
+            httpRequest = entityRequest;
+        }
+        else if ("GET".equals(method))
+        {
+            httpRequest = new HttpGet(url);
+        }
+        else if ("DELETE".equals(method))
+        {
+            httpRequest = new HttpDelete(url);
+        }
+        else
+        {
+            throw new InvalidParameterException("Invalid HTTP method");
+        }
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet())
+        {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+        return httpRequest;
+    }
+
+    /**
+        Returns the client's default RequestConfig, or a copy with the timeouts of the given
+        request, with the wait for a pooled connection limited by the request's deadline.
+    */
+    private RequestConfig getRequestConfig(TransportRequest request)
+    {
+        int poolTimeout = connectionRequestTimeout;
+        Deadline deadline = request.getDeadline();
+        if (deadline != null)
+        {
+            int remaining = (int) Math.max(1, Math.min(deadline.getRemainingMillis(), Integer.MAX_VALUE));
+            poolTimeout = poolTimeout < 0 ? remaining : Math.min(poolTimeout, remaining);
+        }
+
+        if (request.getConnectionTimeout() == defaultRequestConfig.getConnectTimeout()
+            && request.getSocketTimeout() == defaultRequestConfig.getSocketTimeout()
+            && poolTimeout == connectionRequestTimeout)
+        {
+            return defaultRequestConfig;
+        }
+        return RequestConfig.copy(defaultRequestConfig)
+            .setConnectTimeout(request.getConnectionTimeout())
+            .setSocketTimeout(request.getSocketTimeout())
+            .setConnectionRequestTimeout(poolTimeout)
+            .build();
+    }
+
+    private Executor getAsyncExecutor() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Transport is closed");
+        }
+        if (asyncExecutor != null)
+        {
+            return asyncExecutor;
+        }
+        synchronized (this)
+        {
+            if (closed)
+            {
+                throw new IOException("Transport is closed");
+            }
+            if (defaultAsyncExecutor == null)
+            {
+                final AtomicInteger threadCount = new AtomicInteger();
+                defaultAsyncExecutor = Executors.newFixedThreadPool(maxTotal, runnable -> {
+                    Thread thread = new Thread(runnable, "telerivet-async-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return defaultAsyncExecutor;
+        }
+    }
+
+    private CloseableHttpClient getHttpClient() throws IOException
+    {
+        CloseableHttpClient client = httpClient;
+        if (client == null)
+        {
+            client = createHttpClient();
+        }
+        return client;
+    }
+
+    private synchronized CloseableHttpClient createHttpClient() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Transport is closed");
+        }
+        if (httpClient == null)
+        {
+            PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(
+                connectionTimeToLive, TimeUnit.MILLISECONDS);
+            manager.setMaxTotal(maxTotal);
+            manager.setDefaultMaxPerRoute(maxPerRoute);
+            manager.setValidateAfterInactivity(validateAfterInactivity);
+
+            HttpClientBuilder clientBuilder = HttpClientBuilder.create()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .disableRedirectHandling()
+                // TelerivetAPI's RetryPolicy decides which requests are retried
+                .disableAutomaticRetries();
+
+            if (maxIdleTime > 0)
+            {
+                clientBuilder.evictIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+            }
+            if (connectionTimeToLive > 0)
+            {
+                clientBuilder.evictExpiredConnections();
+            }
+
+            connectionManager = manager;
+            httpClient = clientBuilder.build();
+        }
+        return httpClient;
+    }
+
+    /**
+        Configures the connection pool of an ApacheHttpTransport.
+    */
+    public static class Builder
+    {
+        private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+        private int maxTotal = DEFAULT_MAX_TOTAL;
+        private long connectionTimeToLive = -1;
+        private long maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+        private int validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+        private int connectionRequestTimeout = -1;
+        private Executor asyncExecutor;
+
+        private Builder()
+        {
+        }
+
+        /**
+            Maximum number of connections to a single host (e.g. api.telerivet.com).
+            This limits how many requests can be in flight at the same time.
+        */
+        public Builder setMaxPerRoute(int maxPerRoute)
+        {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        /**
+            Maximum number of connections across all hosts.
+        */
+        public Builder setMaxTotal(int maxTotal)
+        {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+            Maximum lifetime of a connection in milliseconds, after which it is closed rather
+            than reused. A value &lt;= 0 means connections may be reused indefinitely.
+        */
+        public Builder setConnectionTimeToLive(long connectionTimeToLive)
+        {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+            Idle connections are closed by a background thread after this many milliseconds.
+            A value &lt;= 0 disables idle connection eviction.
+        */
+        public Builder setMaxIdleTime(long maxIdleTime)
+        {
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        /**
+            Pooled connections that have been idle for longer than this many milliseconds
+            are checked for staleness before being reused. A value &lt;= 0 disables the check.
+        */
+        public Builder setValidateAfterInactivity(int validateAfterInactivity)
+        {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        /**
+            Maximum time in milliseconds to wait for a connection from the pool when all
+            connections are leased. A value &lt; 0 waits indefinitely.
+        */
+        public Builder setConnectionRequestTimeout(int connectionRequestTimeout)
+        {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            return this;
+        }
+
+        /**
+            Executor that runs requests sent with executeAsync. Apache HttpClient 4.x is
+            blocking, so each in-flight async request occupies one of its threads.
+            If not set, a fixed pool of setMaxTotal() daemon threads is used.
+        */
+        public Builder setAsyncExecutor(Executor asyncExecutor)
+        {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        public ApacheHttpTransport build()
+        {
+            return new ApacheHttpTransport(this);
+        }
+    }
+
+    /**
+        Writes a RequestBody of unknown length directly to the connection, using chunked
+        transfer encoding.
+    */
+    private static class RequestBodyEntity extends AbstractHttpEntity
+    {
+        private final RequestBody body;
+
+        RequestBodyEntity(RequestBody body)
+        {
+            this.body = body;
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable()
+        {
+            return true;
+        }
+
+        @Override
+        public long getContentLength()
+        {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException
+        {
+            return new ByteArrayInputStream(body.toByteArray());
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException
+        {
+            body.writeTo(out);
+        }
+
+        @Override
+        public boolean isStreaming()
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.telerivet;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+    JDK Flight Recorder event for one HTTP request to the Telerivet API, spanning from
+    sending the request until its response has been parsed. Each retry is a separate event.
+*/
+@Name("com.telerivet.ApiRequest")
+@Label("Telerivet API Request")
+@Category("Telerivet")
+@Description("An HTTP request sent by TelerivetAPI")
+@StackTrace(true)
+class ApiRequestFlightEvent extends jdk.jfr.Event
+{
+    @Label("Method")
+    String method;
+
+    @Label("Path Template")
+    String pathTemplate;
+
+    @Label("Status Code")
+    @Description("HTTP status code, or 0 if no response was received")
+    int statusCode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Gzipped")
+    boolean gzipped;
+
+    @Label("Retry")
+    @Description("0 for the first attempt, 1 for the first retry, etc.")
+    int retry;
+
+    @Label("Parse Time")
+    @Description("Time spent reading and parsing the response body after the headers were received")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseTime;
+
+    @Label("Error Code")
+    String errorCode;
+}
@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -280,6 +281,15 @@ public class Broadcast extends Entity
         return new Broadcast(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/cancel"));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>cancel</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Broadcast> cancelAsync()
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/cancel", null, res -> new Broadcast(api, (JSONObject) res));
+    }
+
     public String getId()
     {
         return (String) get("id");
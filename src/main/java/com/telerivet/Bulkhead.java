@@ -0,0 +1,138 @@
+package com.telerivet;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+    Limits the number of concurrent requests to a group of endpoints, so that when one
+    group is slow (e.g. sending messages), threads waiting for it cannot use up the
+    transport's connections and the caller's threads needed by other groups.
+
+    <p>A request that cannot start within maxWait fails with TelerivetBulkheadFullException.
+    Asynchronous requests never wait.</p>
+
+    <pre>
+    tr.setBulkhead(EndpointGroup.SEND, Bulkhead.builder()
+        .setMaxConcurrentCalls(10)
+        .build());
+    </pre>
+*/
+public class Bulkhead
+{
+    private final int maxConcurrentCalls;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private Bulkhead(Builder builder)
+    {
+        this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxWait);
+        this.permits = new Semaphore(builder.maxConcurrentCalls, true);
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+        Takes a permit, waiting up to maxWait if wait is true. Returns false if no permit
+        was available.
+    */
+    boolean tryAcquire(boolean wait) throws InterruptedException
+    {
+        boolean acquired = (wait && maxWaitNanos > 0)
+            ? permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)
+            : permits.tryAcquire();
+        if (acquired)
+        {
+            acceptedCount.increment();
+        }
+        else
+        {
+            rejectedCount.increment();
+        }
+        return acquired;
+    }
+
+    void release()
+    {
+        permits.release();
+    }
+
+    public int getMaxConcurrentCalls()
+    {
+        return maxConcurrentCalls;
+    }
+
+    /**
+        Number of requests currently in progress.
+    */
+    public int getActiveCount()
+    {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public long getAcceptedCount()
+    {
+        return acceptedCount.sum();
+    }
+
+    /**
+        Number of requests rejected because the maximum number of concurrent requests were
+        in progress.
+    */
+    public long getRejectedCount()
+    {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[active: " + getActiveCount() + "/" + maxConcurrentCalls + "; accepted: " + getAcceptedCount()
+            + "; rejected: " + getRejectedCount() + "]";
+    }
+
+    public static class Builder
+    {
+        private int maxConcurrentCalls = 25;
+        private long maxWait = 0;
+
+        /**
+            Maximum number of requests in progress at once (default 25).
+        */
+        public Builder setMaxConcurrentCalls(int maxConcurrentCalls)
+        {
+            if (maxConcurrentCalls < 1)
+            {
+                throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+            }
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+            Time in milliseconds that a synchronous request waits for another request to
+            finish when the bulkhead is full (default 0, failing immediately).
+        */
+        public Builder setMaxWait(long maxWait)
+        {
+            if (maxWait < 0)
+            {
+                throw new IllegalArgumentException("maxWait must not be negative");
+            }
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public Bulkhead build()
+        {
+            return new Bulkhead(this);
+        }
+    }
+}
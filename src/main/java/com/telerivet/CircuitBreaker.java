@@ -0,0 +1,375 @@
+package com.telerivet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+    Stops sending requests to a group of endpoints while most recent requests to it are
+    failing, so that callers fail fast with TelerivetCircuitOpenException instead of
+    waiting for timeouts.
+
+    <p>The breaker records whether each of the last windowSize requests failed, where a
+    failure is a connection error (including a timeout) or an HTTP 5xx response. Once at
+    least minimumCalls requests have been recorded and the failure rate reaches
+    failureRateThreshold, the breaker opens and rejects all requests. After openDuration
+    it becomes half-open and lets halfOpenCalls trial requests through: if they all
+    succeed it closes again, and if any fails it opens again.</p>
+
+    <pre>
+    tr.setCircuitBreaker(EndpointGroup.SEND, CircuitBreaker.builder()
+        .setFailureRateThreshold(50)
+        .setOpenDuration(30000)
+        .build());
+    </pre>
+
+    <p>A CircuitBreaker is thread-safe, and should be used for only one endpoint group of
+    one client.</p>
+*/
+public class CircuitBreaker
+{
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+        Notified by the breaker when its state changes (outside the breaker's lock).
+    */
+    interface StateChangeHandler
+    {
+        void onStateChange(State from, State to);
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    // outcomes of the most recent calls while closed (true = failure)
+    private final boolean[] window;
+    private int windowIndex = 0;
+    private int windowCount = 0;
+    private int windowFailures = 0;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    volatile StateChangeHandler stateChangeHandler;
+
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder openCount = new LongAdder();
+
+    private CircuitBreaker(Builder builder)
+    {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(builder.openDuration);
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.window = new boolean[builder.windowSize];
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+        Returns whether a request may be sent now. If it returns true, the caller must
+        call onSuccess, onFailure or onCancel once the request completes.
+    */
+    boolean tryAcquire()
+    {
+        State from = null;
+        boolean permitted;
+        synchronized (this)
+        {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos)
+            {
+                from = transitionTo(State.HALF_OPEN);
+            }
+
+            if (state == State.CLOSED)
+            {
+                permitted = true;
+            }
+            else if (state == State.HALF_OPEN && halfOpenPermits > 0)
+            {
+                halfOpenPermits--;
+                permitted = true;
+            }
+            else
+            {
+                permitted = false;
+            }
+        }
+        if (!permitted)
+        {
+            rejectedCount.increment();
+        }
+        notifyStateChange(from, State.HALF_OPEN);
+        return permitted;
+    }
+
+    void onSuccess()
+    {
+        successCount.increment();
+        State from = null;
+        State to = null;
+        synchronized (this)
+        {
+            if (state == State.CLOSED)
+            {
+                record(false);
+            }
+            else if (state == State.HALF_OPEN && ++halfOpenSuccesses >= halfOpenCalls)
+            {
+                to = State.CLOSED;
+                from = transitionTo(to);
+            }
+        }
+        notifyStateChange(from, to);
+    }
+
+    void onFailure()
+    {
+        failureCount.increment();
+        State from = null;
+        synchronized (this)
+        {
+            if (state == State.CLOSED)
+            {
+                record(true);
+                if (windowCount >= minimumCalls && windowFailures * 100.0 / windowCount >= failureRateThreshold)
+                {
+                    from = transitionTo(State.OPEN);
+                }
+            }
+            else if (state == State.HALF_OPEN)
+            {
+                from = transitionTo(State.OPEN);
+            }
+        }
+        notifyStateChange(from, State.OPEN);
+    }
+
+    /**
+        Returns a permit that was not used because the request was not sent.
+    */
+    void onCancel()
+    {
+        synchronized (this)
+        {
+            if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls - halfOpenSuccesses)
+            {
+                halfOpenPermits++;
+            }
+        }
+    }
+
+    /**
+        Whether a request failed in a way that counts against the breaker.
+    */
+    static boolean isFailure(TransportResponse response)
+    {
+        return response == null || response.getStatusCode() >= 500;
+    }
+
+    public synchronized State getState()
+    {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos)
+        {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+        The failure rate in percent of the calls in the current window.
+    */
+    public synchronized double getFailureRate()
+    {
+        return windowCount == 0 ? 0 : windowFailures * 100.0 / windowCount;
+    }
+
+    public long getSuccessCount()
+    {
+        return successCount.sum();
+    }
+
+    public long getFailureCount()
+    {
+        return failureCount.sum();
+    }
+
+    /**
+        Number of requests rejected because the breaker was open (or half-open with no
+        trial requests left).
+    */
+    public long getRejectedCount()
+    {
+        return rejectedCount.sum();
+    }
+
+    /**
+        Number of times the breaker has opened.
+    */
+    public long getOpenCount()
+    {
+        return openCount.sum();
+    }
+
+    /**
+        Closes the breaker and clears the recorded calls.
+    */
+    public void reset()
+    {
+        State from;
+        synchronized (this)
+        {
+            from = transitionTo(State.CLOSED);
+        }
+        notifyStateChange(from, State.CLOSED);
+    }
+
+    // must be called while synchronized; returns the previous state, or null if unchanged
+    private State transitionTo(State newState)
+    {
+        State previous = state;
+        if (previous == newState)
+        {
+            return null;
+        }
+        state = newState;
+        if (newState == State.OPEN)
+        {
+            openedAt = System.nanoTime();
+            openCount.increment();
+        }
+        else if (newState == State.HALF_OPEN)
+        {
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        else
+        {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+        return previous;
+    }
+
+    private void record(boolean failure)
+    {
+        if (windowCount == window.length)
+        {
+            if (window[windowIndex])
+            {
+                windowFailures--;
+            }
+        }
+        else
+        {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure)
+        {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void notifyStateChange(State from, State to)
+    {
+        StateChangeHandler handler = stateChangeHandler;
+        if (from != null && handler != null)
+        {
+            handler.onStateChange(from, to);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[state: " + getState() + "; failure rate: " + getFailureRate() + "%; successes: " + getSuccessCount()
+            + "; failures: " + getFailureCount() + "; rejected: " + getRejectedCount() + "; opened: " + getOpenCount() + "]";
+    }
+
+    public static class Builder
+    {
+        private double failureRateThreshold = 50;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private long openDuration = 30000;
+        private int halfOpenCalls = 3;
+
+        /**
+            Failure rate in percent at which the breaker opens (default 50).
+        */
+        public Builder setFailureRateThreshold(double failureRateThreshold)
+        {
+            if (failureRateThreshold <= 0 || failureRateThreshold > 100)
+            {
+                throw new IllegalArgumentException("failureRateThreshold must be between 0 and 100");
+            }
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+            Number of most recent calls used to compute the failure rate (default 20).
+        */
+        public Builder setWindowSize(int windowSize)
+        {
+            if (windowSize < 1)
+            {
+                throw new IllegalArgumentException("windowSize must be positive");
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+            Minimum number of calls in the window before the breaker can open (default 10).
+        */
+        public Builder setMinimumCalls(int minimumCalls)
+        {
+            this.minimumCalls = Math.max(1, minimumCalls);
+            return this;
+        }
+
+        /**
+            Time in milliseconds that the breaker stays open before allowing trial
+            requests (default 30000).
+        */
+        public Builder setOpenDuration(long openDuration)
+        {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+            Number of trial requests allowed while half-open, all of which must succeed to
+            close the breaker (default 3).
+        */
+        public Builder setHalfOpenCalls(int halfOpenCalls)
+        {
+            if (halfOpenCalls < 1)
+            {
+                throw new IllegalArgumentException("halfOpenCalls must be positive");
+            }
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        public CircuitBreaker build()
+        {
+            return new CircuitBreaker(this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.telerivet;
+
+/**
+    Point-in-time snapshot of an HTTP connection pool.
+*/
+public class ConnectionPoolStats
+{
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    public ConnectionPoolStats(int leased, int available, int pending, int max)
+    {
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+    }
+
+    /**
+        Number of connections currently in use by a request.
+    */
+    public int getLeased()
+    {
+        return leased;
+    }
+
+    /**
+        Number of idle connections that are kept alive and ready to be reused.
+    */
+    public int getAvailable()
+    {
+        return available;
+    }
+
+    /**
+        Number of requests waiting for a connection to become available.
+    */
+    public int getPending()
+    {
+        return pending;
+    }
+
+    /**
+        Maximum number of connections the pool will open.
+    */
+    public int getMax()
+    {
+        return max;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[leased: " + leased + "; pending: " + pending + "; available: " + available + "; max: " + max + "]";
+    }
+}
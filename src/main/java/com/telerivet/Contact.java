@@ -1,6 +1,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Date;
@@ -152,6 +153,18 @@ public class Contact extends Entity
         api.doRequest("PUT", group.getBaseApiPath() + "/contacts/" + getId());
         groupIdsSet.add(group.getId());
     }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>addToGroup</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> addToGroupAsync(Group group)
+    {
+        return api.doRequestAsync("PUT", group.getBaseApiPath() + "/contacts/" + getId(), null, res -> {
+            groupIdsSet.add(group.getId());
+            return null;
+        });
+    }
     
     /**
         <div class='markdown'><p>Removes this contact from a group.</p>
@@ -162,6 +175,18 @@ public class Contact extends Entity
         api.doRequest("DELETE", group.getBaseApiPath() + "/contacts/" + getId());
         groupIdsSet.remove(group.getId());
     }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>removeFromGroup</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> removeFromGroupAsync(Group group)
+    {
+        return api.doRequestAsync("DELETE", group.getBaseApiPath() + "/contacts/" + getId(), null, res -> {
+            groupIdsSet.remove(group.getId());
+            return null;
+        });
+    }
     
     private Set<String> groupIdsSet;
     
@@ -273,6 +298,15 @@ public class Contact extends Entity
         api.doRequest("DELETE", getBaseApiPath());
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>delete</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> deleteAsync()
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath(), null, res -> null);
+    }
+
     public String getId()
     {
         return (String) get("id");
@@ -0,0 +1,100 @@
+package com.telerivet;
+
+import java.util.Collections;
+import java.util.List;
+import org.json.JSONObject;
+
+/**
+    Result of a ContactImporter run.
+
+    <p>The importContacts API returns the ID of each imported contact but does not say
+    whether it was newly created or an existing contact that was updated, so both are
+    counted as imported.</p>
+*/
+public class ContactImportReport
+{
+    private final long totalCount;
+    private final long importedCount;
+    private final List<Failure> failures;
+
+    ContactImportReport(long totalCount, long importedCount, List<Failure> failures)
+    {
+        this.totalCount = totalCount;
+        this.importedCount = importedCount;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+        Number of contacts read from the input.
+    */
+    public long getTotalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+        Number of contacts that were created or updated.
+    */
+    public long getImportedCount()
+    {
+        return importedCount;
+    }
+
+    public long getFailedCount()
+    {
+        return failures.size();
+    }
+
+    /**
+        Failed rows, in order of their index in the input.
+    */
+    public List<Failure> getFailures()
+    {
+        return failures;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[total: " + totalCount + "; imported: " + importedCount + "; failed: " + failures.size() + "]";
+    }
+
+    /**
+        A contact that could not be imported.
+    */
+    public static class Failure
+    {
+        private final long index;
+        private final JSONObject contact;
+        private final Throwable error;
+
+        Failure(long index, JSONObject contact, Throwable error)
+        {
+            this.index = index;
+            this.contact = contact;
+            this.error = error;
+        }
+
+        /**
+            0-based index of the contact in the input.
+        */
+        public long getIndex()
+        {
+            return index;
+        }
+
+        public JSONObject getContact()
+        {
+            return contact;
+        }
+
+        /**
+            The error for this contact, or for the whole importContacts request that included
+            it (typically a TelerivetAPIException).
+        */
+        public Throwable getError()
+        {
+            return error;
+        }
+    }
+}
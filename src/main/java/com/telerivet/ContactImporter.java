@@ -0,0 +1,257 @@
+package com.telerivet;
+
+import com.telerivet.exception.TelerivetAPIException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+    Imports an arbitrarily large sequence of contacts using Project.importContacts,
+    splitting it into chunks of up to 200 contacts and running a bounded number of
+    import requests concurrently.
+
+    <p>Contacts are read from the Iterator or Stream only as fast as the requests complete,
+    so memory use does not depend on the number of contacts. The returned report counts the
+    imported and failed rows and lists each failed row with its 0-based index in the input.
+    To record the ID of each imported contact, set an ImportListener.</p>
+
+    <p>importContacts returns one object per row, in the same order, with the id of the
+    imported contact. A row fails if its result is missing or null, has no id, or has an
+    error or error_message.</p>
+
+    <pre>
+    ContactImportReport report = ContactImporter.builder(project)
+        .setMaxConcurrentRequests(4)
+        .build()
+        .run(contactsIterator);
+    </pre>
+*/
+public class ContactImporter
+{
+    public static final int MAX_CHUNK_SIZE = 200;
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private final Project project;
+    private final JSONObject defaults;
+    private final int chunkSize;
+    private final int maxConcurrentRequests;
+    private final ImportListener listener;
+
+    private ContactImporter(Builder builder)
+    {
+        this.project = builder.project;
+        this.defaults = builder.defaults;
+        this.chunkSize = builder.chunkSize;
+        this.maxConcurrentRequests = builder.maxConcurrentRequests;
+        this.listener = builder.listener;
+    }
+
+    public static Builder builder(Project project)
+    {
+        return new Builder(project);
+    }
+
+    public ContactImportReport run(Stream<JSONObject> contacts) throws IOException
+    {
+        return run(contacts.iterator());
+    }
+
+    /**
+        Imports all contacts from the iterator, blocking until every import request has
+        completed. Each contact is a JSONObject with the same format as one item in the
+        <code>contacts</code> parameter of Project.importContacts.
+    */
+    public ContactImportReport run(Iterator<JSONObject> contacts) throws IOException
+    {
+        final Semaphore permits = new Semaphore(maxConcurrentRequests);
+        final AtomicLong importedCount = new AtomicLong();
+        final List<ContactImportReport.Failure> failures =
+            Collections.synchronizedList(new ArrayList<ContactImportReport.Failure>());
+
+        long index = 0;
+        try
+        {
+            while (contacts.hasNext())
+            {
+                final long startIndex = index;
+                final List<JSONObject> chunk = new ArrayList<JSONObject>(chunkSize);
+                while (chunk.size() < chunkSize && contacts.hasNext())
+                {
+                    chunk.add(contacts.next());
+                    index++;
+                }
+
+                permits.acquire();
+
+                project.importContactsAsync(getChunkOptions(chunk)).whenComplete((res, error) -> {
+                    try
+                    {
+                        completeChunk(chunk, startIndex, res, error, importedCount, failures);
+                    }
+                    finally
+                    {
+                        permits.release();
+                    }
+                });
+            }
+
+            permits.acquire(maxConcurrentRequests);
+            permits.release(maxConcurrentRequests);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Contact import interrupted after " + index + " contacts");
+        }
+
+        List<ContactImportReport.Failure> sortedFailures = new ArrayList<ContactImportReport.Failure>(failures);
+        sortedFailures.sort((a, b) -> Long.compare(a.getIndex(), b.getIndex()));
+
+        return new ContactImportReport(index, importedCount.get(), sortedFailures);
+    }
+
+    private JSONObject getChunkOptions(List<JSONObject> chunk)
+    {
+        JSONObject options = new JSONObject();
+        if (defaults != null)
+        {
+            Iterator<String> keysIter = defaults.keys();
+            while (keysIter.hasNext())
+            {
+                String key = keysIter.next();
+                options.put(key, defaults.get(key));
+            }
+        }
+        options.put("contacts", new JSONArray(chunk));
+        return options;
+    }
+
+    private void completeChunk(List<JSONObject> chunk, long startIndex, JSONObject response, Throwable error,
+        AtomicLong importedCount, List<ContactImportReport.Failure> failures)
+    {
+        if (error != null)
+        {
+            for (int i = 0; i < chunk.size(); i++)
+            {
+                failures.add(new ContactImportReport.Failure(startIndex + i, chunk.get(i), error));
+            }
+            return;
+        }
+
+        JSONArray results = response.optJSONArray("contacts");
+        int numResults = results != null ? results.length() : 0;
+
+        for (int i = 0; i < chunk.size(); i++)
+        {
+            JSONObject result = i < numResults ? results.optJSONObject(i) : null;
+            if (result == null)
+            {
+                failures.add(new ContactImportReport.Failure(startIndex + i, chunk.get(i),
+                    new IOException("Missing result for contact " + i + " in importContacts response")));
+            }
+            else if (result.optJSONObject("error") != null)
+            {
+                failures.add(new ContactImportReport.Failure(startIndex + i, chunk.get(i),
+                    TelerivetAPI.createException(result.getJSONObject("error"))));
+            }
+            else if (result.optString("error_message").length() > 0)
+            {
+                failures.add(new ContactImportReport.Failure(startIndex + i, chunk.get(i),
+                    new TelerivetAPIException(result.getString("error_message"), "import_failed")));
+            }
+            else if (result.optString("id").length() == 0)
+            {
+                failures.add(new ContactImportReport.Failure(startIndex + i, chunk.get(i),
+                    new TelerivetAPIException("Contact " + i + " was not imported", "import_failed")));
+            }
+            else
+            {
+                importedCount.incrementAndGet();
+                if (listener != null)
+                {
+                    listener.onImported(startIndex + i, result);
+                }
+            }
+        }
+    }
+
+    /**
+        Receives each successfully imported row. Called from the thread that completes the
+        import request, so implementations must be thread-safe.
+    */
+    public interface ImportListener
+    {
+        /**
+            @param index 0-based index of the contact in the input
+            @param result the object returned for this contact by importContacts, containing its id
+        */
+        void onImported(long index, JSONObject result);
+    }
+
+    /**
+        Configures a ContactImporter.
+    */
+    public static class Builder
+    {
+        private final Project project;
+        private JSONObject defaults;
+        private int chunkSize = MAX_CHUNK_SIZE;
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        private ImportListener listener;
+
+        private Builder(Project project)
+        {
+            this.project = project;
+        }
+
+        /**
+            Top-level importContacts parameters applied to every chunk (e.g. add_group_ids).
+        */
+        public Builder setDefaults(JSONObject defaults)
+        {
+            this.defaults = defaults;
+            return this;
+        }
+
+        /**
+            Number of contacts per importContacts request (at most 200).
+        */
+        public Builder setChunkSize(int chunkSize)
+        {
+            if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE)
+            {
+                throw new IllegalArgumentException("chunkSize must be between 1 and " + MAX_CHUNK_SIZE);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+            Maximum number of importContacts requests in flight at the same time.
+        */
+        public Builder setMaxConcurrentRequests(int maxConcurrentRequests)
+        {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        public Builder setListener(ImportListener listener)
+        {
+            this.listener = listener;
+            return this;
+        }
+
+        public ContactImporter build()
+        {
+            return new ContactImporter(this);
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -104,6 +105,15 @@ public class ContactServiceState extends Entity
         api.doRequest("DELETE", getBaseApiPath());
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>reset</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> resetAsync()
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath(), null, res -> null);
+    }
+
     public String getId()
     {
         return (String) get("id");
@@ -0,0 +1,34 @@
+package com.telerivet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+    JDK Flight Recorder event for an APICursor loading its next page, spanning the time
+    the iterating thread waited for it (which is shorter than the request when the page
+    was prefetched).
+*/
+@Name("com.telerivet.CursorPage")
+@Label("Telerivet Cursor Page")
+@Category("Telerivet")
+@Description("An APICursor loading the next page of results")
+@StackTrace(true)
+class CursorPageFlightEvent extends jdk.jfr.Event
+{
+    @Label("Path Template")
+    String pathTemplate;
+
+    @Label("Page Size")
+    @Description("Number of items in the page")
+    int pageSize;
+
+    @Label("Truncated")
+    @Description("Whether more pages follow")
+    boolean truncated;
+
+    @Label("Prefetched")
+    boolean prefetched;
+}
@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -97,6 +98,15 @@ public class DataRow extends Entity
         api.doRequest("DELETE", getBaseApiPath());
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>delete</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> deleteAsync()
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath(), null, res -> null);
+    }
+
     public String getId()
     {
         return (String) get("id");
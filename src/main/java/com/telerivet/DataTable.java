@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -101,6 +102,15 @@ public class DataTable extends Entity
         return new DataRow(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/rows", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>createRow</code>.</p>
+        </div>
+    */
+    public CompletableFuture<DataRow> createRowAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/rows", options, res -> new DataRow(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Retrieves the row in the given table with the given ID.</p>
         </div>
@@ -110,6 +120,15 @@ public class DataTable extends Entity
         return new DataRow(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/rows/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getRowById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<DataRow> getRowByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/rows/" + id, null, res -> new DataRow(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the row in the given table with the given ID, without making an API request.</p>
         </div>
@@ -131,6 +150,15 @@ public class DataTable extends Entity
         return (JSONArray) api.doRequest("GET", getBaseApiPath() + "/fields");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getFields</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONArray> getFieldsAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/fields", null, res -> (JSONArray) res);
+    }
+
     /**
         <div class='markdown'><p>Allows customizing how a field (column) is displayed in the Telerivet web app.</p>
         
@@ -143,6 +171,15 @@ public class DataTable extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/fields/" + variable, options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>setFieldMetadata</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> setFieldMetadataAsync(String variable, JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/fields/" + variable, options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Returns the number of rows for each value of a given variable. This can be used to get the
         total number of responses for each choice in a poll, without making a separate query for
@@ -155,6 +192,15 @@ public class DataTable extends Entity
         return (JSONObject) api.doRequest("GET", getBaseApiPath() + "/count_rows_by_value", Util.options("variable", variable));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>countRowsByValue</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> countRowsByValueAsync(String variable)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/count_rows_by_value", Util.options("variable", variable), res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Saves any fields that have changed for this data table.</p>
         </div>
@@ -174,6 +220,15 @@ public class DataTable extends Entity
         api.doRequest("DELETE", getBaseApiPath());
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>delete</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> deleteAsync()
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath(), null, res -> null);
+    }
+
     public String getId()
     {
         return (String) get("id");
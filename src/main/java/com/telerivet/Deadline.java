@@ -0,0 +1,169 @@
+package com.telerivet;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+    A point in time by which one or more API calls must complete, covering retries, rate
+    limiter waits and reading the response. Requests that are still in progress when the
+    deadline expires are cancelled by the transport and fail with
+    TelerivetDeadlineExceededException.
+
+    <p>A deadline applies to all API calls made by the current thread within its scope
+    (asynchronous calls use the deadline in effect when they are started):</p>
+
+    <pre>
+    try (Deadline.Scope scope = Deadline.after(2000).enter())
+    {
+        Contact contact = project.getContactById(contactId);
+        project.sendMessage(replyOptions);
+    }
+    </pre>
+
+    <p>Scopes may be nested; an inner scope cannot extend the deadline of an outer one.
+    See also APICursor.deadline() to limit the time spent loading all pages of a
+    cursor.</p>
+*/
+public final class Deadline
+{
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+    // far enough in the future that nanoTime arithmetic cannot overflow
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 4;
+
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    private final long deadlineNanos; // on the System.nanoTime() clock
+
+    private Deadline(long deadlineNanos)
+    {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+        Returns a deadline the given number of milliseconds from now.
+    */
+    public static Deadline after(long timeout)
+    {
+        return after(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    public static Deadline after(long timeout, TimeUnit unit)
+    {
+        long nanos = Math.min(Math.max(unit.toNanos(timeout), 0), MAX_TIMEOUT_NANOS);
+        return new Deadline(System.nanoTime() + nanos);
+    }
+
+    /**
+        Returns the deadline in effect for the current thread, or null if there is none.
+    */
+    public static Deadline current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+        Makes this deadline (or the current deadline, if it expires earlier) apply to API
+        calls made by the current thread until the returned scope is closed.
+    */
+    public Scope enter()
+    {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(previous != null && previous.deadlineNanos - deadlineNanos < 0 ? previous : this);
+        return new Scope(previous);
+    }
+
+    public boolean isExpired()
+    {
+        return getRemainingNanos() <= 0;
+    }
+
+    /**
+        Time left until the deadline expires, or 0 if it has already expired.
+    */
+    public long getRemainingNanos()
+    {
+        return Math.max(deadlineNanos - System.nanoTime(), 0);
+    }
+
+    /**
+        Time left in milliseconds (rounded up), or 0 if the deadline has already expired.
+    */
+    public long getRemainingMillis()
+    {
+        return (getRemainingNanos() + 999999) / 1000000;
+    }
+
+    /**
+        Runs the action on a shared timer thread when the deadline expires, unless the
+        returned future is cancelled first. The action must be fast.
+    */
+    ScheduledFuture<?> whenExpired(Runnable action)
+    {
+        return TIMER.schedule(action, getRemainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+        Wraps a response body so that closing it cancels the given task, e.g. one that
+        would abort the request when the deadline expires.
+    */
+    static InputStream cancelOnClose(InputStream body, final Future<?> task)
+    {
+        return new FilterInputStream(body) {
+            @Override
+            public void close() throws IOException
+            {
+                task.cancel(false);
+                super.close();
+            }
+        };
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer()
+    {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "telerivet-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[remaining: " + getRemainingMillis() + " ms]";
+    }
+
+    /**
+        Restores the previous deadline of the thread when closed.
+    */
+    public static final class Scope implements AutoCloseable
+    {
+        private final Deadline previous;
+
+        private Scope(Deadline previous)
+        {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close()
+        {
+            if (previous != null)
+            {
+                CURRENT.set(previous);
+            }
+            else
+            {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.telerivet;
+
+/**
+    Broad classes of API endpoints, used to configure client-side limits separately for
+    e.g. sending messages and querying data.
+*/
+public enum EndpointGroup
+{
+    /** Requests that send messages, e.g. sendMessage, sendMulti, sendBroadcast and resend. */
+    SEND,
+
+    /** Project.importContacts. */
+    IMPORT,
+
+    /** GET requests, including each page loaded by an APICursor. */
+    QUERY,
+
+    /** All other POST, PUT and DELETE requests. */
+    UPDATE;
+
+    /**
+        Returns the group of the API request with the given HTTP method and path.
+    */
+    public static EndpointGroup forRequest(String method, String path)
+    {
+        if ("GET".equals(method))
+        {
+            return QUERY;
+        }
+        if ("POST".equals(method))
+        {
+            if (path.endsWith("/send") || path.endsWith("/send_multi") || path.endsWith("/send_batch")
+                || path.endsWith("/send_broadcast") || path.endsWith("/resend"))
+            {
+                return SEND;
+            }
+            if (path.endsWith("/import_contacts"))
+            {
+                return IMPORT;
+            }
+        }
+        return UPDATE;
+    }
+}
@@ -0,0 +1,106 @@
+package com.telerivet;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+    A snapshot of the metrics recorded for one endpoint (HTTP method and path template).
+
+    @see RequestMetrics#getSnapshot()
+*/
+public class EndpointMetrics
+{
+    private final String method;
+    private final String pathTemplate;
+    private final long requestCount;
+    private final long errorCount;
+    private final long gzippedCount;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final LatencyHistogram latency;
+    private final Map<String, Long> errorCodes;
+
+    EndpointMetrics(String method, String pathTemplate, long requestCount, long errorCount, long gzippedCount,
+        long requestBytes, long responseBytes, LatencyHistogram latency, Map<String, Long> errorCodes)
+    {
+        this.method = method;
+        this.pathTemplate = pathTemplate;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.gzippedCount = gzippedCount;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.latency = latency;
+        this.errorCodes = Collections.unmodifiableMap(errorCodes);
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    public String getPathTemplate()
+    {
+        return pathTemplate;
+    }
+
+    /**
+        Number of HTTP requests, including retries.
+    */
+    public long getRequestCount()
+    {
+        return requestCount;
+    }
+
+    public long getErrorCount()
+    {
+        return errorCount;
+    }
+
+    public double getErrorRate()
+    {
+        return requestCount == 0 ? 0 : (double) errorCount / requestCount;
+    }
+
+    /**
+        Number of requests whose body was gzip-compressed.
+    */
+    public long getGzippedCount()
+    {
+        return gzippedCount;
+    }
+
+    public long getRequestBytes()
+    {
+        return requestBytes;
+    }
+
+    public long getResponseBytes()
+    {
+        return responseBytes;
+    }
+
+    /**
+        Latency distribution in microseconds.
+    */
+    public LatencyHistogram getLatency()
+    {
+        return latency;
+    }
+
+    /**
+        Number of errors by error code (see RequestEvent.getErrorCode).
+    */
+    public Map<String, Long> getErrorCodes()
+    {
+        return errorCodes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return method + " " + pathTemplate + " [requests: " + requestCount + "; errors: " + errorCount
+            + "; gzipped: " + gzippedCount + "; sent: " + requestBytes + "B; received: " + responseBytes
+            + "B; latency: " + latency + "; error codes: " + errorCodes + "]";
+    }
+}
@@ -2,6 +2,7 @@ package com.telerivet;
 
 import java.util.Iterator;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 
 /**
@@ -56,6 +57,46 @@ public abstract class Entity {
         }        
     }
     
+    /**
+        Asynchronous version of load(). The returned future completes with this entity once
+        its data has been loaded.
+    */
+    public CompletableFuture<Entity> loadAsync()
+    {
+        if (isLoaded)
+        {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        String path;
+        try
+        {
+            path = getBaseApiPath();
+        }
+        catch (IOException ex)
+        {
+            CompletableFuture<Entity> result = new CompletableFuture<Entity>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        return api.doRequestAsync("GET", path, null, res -> {
+            if (!isLoaded)
+            {
+                isLoaded = true;
+                setData((JSONObject) res);
+
+                Iterator<String> dirtyIter = dirty.keys();
+                while (dirtyIter.hasNext())
+                {
+                    String key = dirtyIter.next();
+                    data.put(key, dirty.get(key));
+                }
+            }
+            return this;
+        });
+    }
+
     public Object get(String name)
     {               
         if (data.has(name))
@@ -104,6 +145,79 @@ public abstract class Entity {
         }
     }
     
+    /**
+        Asynchronous version of save(). Properties changed after this method is called are
+        not included in the request and remain dirty. If the request fails, the properties it
+        would have saved are marked dirty again.
+    */
+    public CompletableFuture<Void> saveAsync()
+    {
+        final JSONObject dirtyProps = dirty;
+        final JSONObject dirtyVars = vars != null ? vars.getDirtyVariables() : null;
+        if (dirtyVars != null && dirtyVars.length() > 0)
+        {
+            dirtyProps.put("vars", dirtyVars);
+        }
+
+        String path;
+        try
+        {
+            path = getBaseApiPath();
+        }
+        catch (IOException ex)
+        {
+            CompletableFuture<Void> result = new CompletableFuture<Void>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        dirty = new JSONObject();
+        if (vars != null)
+        {
+            vars.clearDirtyVariables();
+        }
+
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        api.doRequestAsync("POST", path, dirtyProps).whenComplete((res, error) -> {
+            if (error != null)
+            {
+                restoreDirty(dirtyProps, dirtyVars);
+                result.completeExceptionally(error);
+            }
+            else
+            {
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    private void restoreDirty(JSONObject dirtyProps, JSONObject dirtyVars)
+    {
+        Iterator<String> keysIter = dirtyProps.keys();
+        while (keysIter.hasNext())
+        {
+            String key = keysIter.next();
+            if (!"vars".equals(key) && !dirty.has(key))
+            {
+                dirty.put(key, dirtyProps.get(key));
+            }
+        }
+        if (dirtyVars != null && vars != null)
+        {
+            JSONObject currentDirtyVars = vars.getDirtyVariables();
+            Iterator<String> varsIter = dirtyVars.keys();
+            while (varsIter.hasNext())
+            {
+                String key = varsIter.next();
+                if (!currentDirtyVars.has(key))
+                {
+                    currentDirtyVars.put(key, dirtyVars.get(key));
+                }
+            }
+        }
+    }
+
     @Override
     public String toString()
     {    
@@ -0,0 +1,419 @@
+package com.telerivet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import org.json.JSONObject;
+
+/**
+    A read-through cache for Project.getContactById, getGroupById, getLabelById and
+    getPhoneById, keyed by entity type and ID. Entries expire after a TTL, and the least
+    recently used entries are evicted when the cache is full.
+
+    <p>Entries are invalidated when the same client sends a POST, PUT or DELETE request
+    whose path contains the entity's ID after the project (or organization) ID, e.g. save()
+    and delete() on the entity or adding a contact to a group. Changes made by other
+    clients or in the Telerivet web app are only seen after the TTL expires.</p>
+
+    <p>A response that was loaded while its entity was invalidated is not cached, since it
+    may already be out of date. Versions are tracked per ID (in a fixed number of stripes),
+    so writes to other entities do not prevent caching.</p>
+
+    <pre>
+    tr.setEntityCache(EntityCache.builder()
+        .setMaxSize(10000)
+        .setTtl(60000)
+        .build());
+    </pre>
+
+    <p>Each lookup returns a new entity object with its own copy of the cached data.
+    The cache is thread-safe and may be shared by several TelerivetAPI clients that use
+    the same API key.</p>
+*/
+public class EntityCache
+{
+    private static final int MAX_SEGMENTS = 16;
+    private static final int VERSION_STRIPES = 256;
+
+    private final long ttlNanos;
+    private final Segment[] segments;
+    private final Set<Class<?>> cachedTypes = ConcurrentHashMap.newKeySet();
+
+    // incremented by each invalidation of an ID in the stripe (or of all entities), so
+    // that responses loaded before it are not cached
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private EntityCache(Builder builder)
+    {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(builder.ttl);
+
+        int numSegments = Math.max(1, Math.min(MAX_SEGMENTS, builder.maxSize / 64));
+        this.segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++)
+        {
+            int segmentSize = builder.maxSize / numSegments + (i < builder.maxSize % numSegments ? 1 : 0);
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+        Returns a copy of the cached data for the given entity, or null if it is not cached
+        or has expired.
+    */
+    JSONObject get(Class<?> type, String id)
+    {
+        Key key = new Key(type, id);
+        CacheEntry entry = segmentFor(key).get(key);
+        if (entry == null)
+        {
+            missCount.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0)
+        {
+            segmentFor(key).remove(key, entry);
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return Util.deepCopy(entry.data);
+    }
+
+    /**
+        Returns the current version of the given ID, which must be passed to put() after
+        loading the entity.
+    */
+    long getVersion(String id)
+    {
+        // both only increase, so the sum changes whenever either does
+        return epoch.get() + versions.get(stripeFor(id));
+    }
+
+    /**
+        Caches a copy of the data loaded for an entity, unless its ID was invalidated since
+        the given version was read (in which case the data may already be out of date).
+    */
+    void put(Class<?> type, String id, JSONObject data, long loadVersion)
+    {
+        cachedTypes.add(type);
+        Key key = new Key(type, id);
+        CacheEntry entry = new CacheEntry(Util.deepCopy(data), System.nanoTime() + ttlNanos);
+        segmentFor(key).putIfCurrent(key, entry, id, loadVersion);
+    }
+
+    /**
+        Removes the cached entity of the given type and ID, if any.
+    */
+    public void invalidate(Class<?> type, String id)
+    {
+        versions.incrementAndGet(stripeFor(id));
+        Key key = new Key(type, id);
+        segmentFor(key).remove(key, null);
+    }
+
+    /**
+        Removes all cached entities with the given ID.
+    */
+    public void invalidate(String id)
+    {
+        versions.incrementAndGet(stripeFor(id));
+        for (Class<?> type : cachedTypes)
+        {
+            Key key = new Key(type, id);
+            segmentFor(key).remove(key, null);
+        }
+    }
+
+    /**
+        Removes the cached entities changed by a POST, PUT or DELETE request to an API path,
+        i.e. those whose IDs appear in the path after the first one, which is the project
+        or organization the request belongs to. For example, a request to
+        /projects/PJ123abc456/groups/CG123abc456/contacts/CT123abc456 invalidates the group
+        and the contact. A request to the project's own path (e.g. /projects/PJ123abc456)
+        invalidates the project.
+    */
+    void invalidatePath(String path)
+    {
+        int queryIndex = path.indexOf('?');
+        if (queryIndex != -1)
+        {
+            path = path.substring(0, queryIndex);
+        }
+        Matcher matcher = Util.ID_SEGMENT.matcher(path);
+        String firstId = null;
+        while (matcher.find())
+        {
+            String id = path.substring(matcher.start() + 1, matcher.end());
+            if (firstId == null)
+            {
+                firstId = id;
+            }
+            else
+            {
+                invalidate(id);
+            }
+        }
+        if (firstId != null && path.endsWith("/" + firstId))
+        {
+            invalidate(firstId);
+        }
+    }
+
+    public void invalidateAll()
+    {
+        epoch.incrementAndGet();
+        for (Segment segment : segments)
+        {
+            segment.clear();
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public Stats getStats()
+    {
+        return new Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size());
+    }
+
+    public void resetStats()
+    {
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+    }
+
+    private static int stripeFor(String id)
+    {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private Segment segmentFor(Key key)
+    {
+        int hash = key.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+    }
+
+    /**
+        Hit and miss counts since the cache was created (or since resetStats was called).
+        Expired entries count as misses.
+    */
+    public static class Stats
+    {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int size;
+
+        Stats(long hitCount, long missCount, long evictionCount, int size)
+        {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+        }
+
+        public long getHitCount()
+        {
+            return hitCount;
+        }
+
+        public long getMissCount()
+        {
+            return missCount;
+        }
+
+        public double getHitRate()
+        {
+            long total = hitCount + missCount;
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+
+        /**
+            Number of entries removed because the cache was full.
+        */
+        public long getEvictionCount()
+        {
+            return evictionCount;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[hits: " + hitCount + "; misses: " + missCount + "; evictions: " + evictionCount
+                + "; size: " + size + "]";
+        }
+    }
+
+    public static class Builder
+    {
+        private int maxSize = 10000;
+        private long ttl = 60000;
+
+        /**
+            Maximum number of cached entities (default 10000).
+        */
+        public Builder setMaxSize(int maxSize)
+        {
+            if (maxSize < 1)
+            {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+            Time in milliseconds after which a cached entity is loaded again (default 60000).
+        */
+        public Builder setTtl(long ttl)
+        {
+            if (ttl < 0)
+            {
+                throw new IllegalArgumentException("ttl must not be negative");
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        public EntityCache build()
+        {
+            return new EntityCache(this);
+        }
+    }
+
+    private static final class Key
+    {
+        final Class<?> type;
+        final String id;
+
+        Key(Class<?> type, String id)
+        {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * type.hashCode() + id.hashCode();
+        }
+    }
+
+    private static final class CacheEntry
+    {
+        final JSONObject data;
+        final long expiresAt;
+
+        CacheEntry(JSONObject data, long expiresAt)
+        {
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+        One lock-striped part of the cache, which evicts its least recently used entry when
+        full. Expired entries are removed when they are looked up.
+    */
+    private final class Segment
+    {
+        private final LinkedHashMap<Key, CacheEntry> map;
+
+        Segment(final int maxSize)
+        {
+            this.map = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest)
+                {
+                    if (size() > maxSize)
+                    {
+                        evictionCount.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized CacheEntry get(Key key)
+        {
+            return map.get(key);
+        }
+
+        /**
+            Adds an entry unless its ID was invalidated since loadVersion. Checked while
+            holding the lock that invalidation takes (after updating the version) to remove
+            the entry, so a stale entry is either not added or removed again.
+        */
+        synchronized void putIfCurrent(Key key, CacheEntry entry, String id, long loadVersion)
+        {
+            if (getVersion(id) == loadVersion)
+            {
+                map.put(key, entry);
+            }
+        }
+
+        /**
+            Removes the entry for a key, only if it is the given entry (or any entry if null).
+        */
+        synchronized void remove(Key key, CacheEntry entry)
+        {
+            if (entry == null || map.get(key) == entry)
+            {
+                map.remove(key);
+            }
+        }
+
+        synchronized void clear()
+        {
+            map.clear();
+        }
+
+        synchronized int size()
+        {
+            return map.size();
+        }
+    }
+}
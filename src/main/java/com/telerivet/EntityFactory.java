@@ -0,0 +1,82 @@
+package com.telerivet;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.security.InvalidParameterException;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.JSONObject;
+
+/**
+    Creates objects of type T from the JSON data returned by the API, e.g. one per item
+    returned by an APICursor.
+
+    <p>Factories for all of the built-in entity classes are registered by default.
+    Use TelerivetAPI.registerEntityFactory to add one for a custom class.</p>
+*/
+public interface EntityFactory<T>
+{
+    T create(TelerivetAPI api, JSONObject data, boolean isLoaded);
+
+    /**
+        Factories for the entity classes defined in this package, and for JSONObject
+        (which returns the item data itself).
+    */
+    static Map<Class<?>, EntityFactory<?>> getDefaultFactories()
+    {
+        Map<Class<?>, EntityFactory<?>> factories = new HashMap<Class<?>, EntityFactory<?>>();
+        factories.put(JSONObject.class, (EntityFactory<JSONObject>) (api, data, isLoaded) -> data);
+        factories.put(AirtimeTransaction.class, (EntityFactory<AirtimeTransaction>) AirtimeTransaction::new);
+        factories.put(Broadcast.class, (EntityFactory<Broadcast>) Broadcast::new);
+        factories.put(Contact.class, (EntityFactory<Contact>) Contact::new);
+        factories.put(ContactServiceState.class, (EntityFactory<ContactServiceState>) ContactServiceState::new);
+        factories.put(DataRow.class, (EntityFactory<DataRow>) DataRow::new);
+        factories.put(DataTable.class, (EntityFactory<DataTable>) DataTable::new);
+        factories.put(Group.class, (EntityFactory<Group>) Group::new);
+        factories.put(Label.class, (EntityFactory<Label>) Label::new);
+        factories.put(Message.class, (EntityFactory<Message>) Message::new);
+        factories.put(Organization.class, (EntityFactory<Organization>) Organization::new);
+        factories.put(Phone.class, (EntityFactory<Phone>) Phone::new);
+        factories.put(Project.class, (EntityFactory<Project>) Project::new);
+        factories.put(RelativeScheduledMessage.class, (EntityFactory<RelativeScheduledMessage>) RelativeScheduledMessage::new);
+        factories.put(Route.class, (EntityFactory<Route>) Route::new);
+        factories.put(ScheduledMessage.class, (EntityFactory<ScheduledMessage>) ScheduledMessage::new);
+        factories.put(Service.class, (EntityFactory<Service>) Service::new);
+        factories.put(Task.class, (EntityFactory<Task>) Task::new);
+        return factories;
+    }
+
+    /**
+        Returns a factory that calls the (TelerivetAPI, JSONObject, boolean) constructor of
+        the given class via reflection. Only used for classes without a registered factory.
+    */
+    static <T> EntityFactory<T> forConstructor(Class<T> clazz)
+    {
+        final Constructor<T> ctor;
+        try
+        {
+            ctor = clazz.getDeclaredConstructor(TelerivetAPI.class, JSONObject.class, boolean.class);
+        }
+        catch (NoSuchMethodException ex)
+        {
+            throw new InvalidParameterException("Class " + clazz.getName() + " does not have 3 argument constructor.");
+        }
+        ctor.setAccessible(true);
+
+        return (api, data, isLoaded) -> {
+            try
+            {
+                return ctor.newInstance(api, data, isLoaded);
+            }
+            catch (InvocationTargetException ex)
+            {
+                Throwable cause = ex.getCause();
+                throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+            }
+            catch (ReflectiveOperationException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        };
+    }
+}
@@ -0,0 +1,266 @@
+package com.telerivet;
+
+import com.telerivet.exception.TelerivetAPIException;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+    Retries failed requests with exponentially increasing delays and random jitter.
+
+    <p>A request is retried if its HTTP method is retryable (GET, PUT and DELETE by
+    default, since retrying a POST such as sendMessage could perform the action twice)
+    and it failed with a connection error, a retryable HTTP status code (429, 502, 503 and
+    504 by default), or an API error whose code is in the set of retryable error codes.</p>
+
+    <p>The delay before retry N is initialBackoff * multiplier^(N-1), capped at maxBackoff,
+    then reduced by a random fraction of up to <code>jitter</code> so that many clients
+    failing at the same time do not retry in lockstep. If the response has a Retry-After
+    header, that delay is used instead, unless it is longer than maxRetryAfter, in which
+    case the request is not retried.</p>
+*/
+public class ExponentialBackoffRetryPolicy implements RetryPolicy
+{
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF = 500; // ms
+    public static final long DEFAULT_MAX_BACKOFF = 30000; // ms
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+    public static final double DEFAULT_JITTER = 0.5;
+    public static final long DEFAULT_MAX_RETRY_AFTER = 60000; // ms
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final double multiplier;
+    private final double jitter;
+    private final long maxRetryAfter;
+    private final boolean retryConnectionErrors;
+    private final Set<String> retryableMethods;
+    private final Set<Integer> retryableStatusCodes;
+    private final Set<String> retryableErrorCodes;
+
+    public ExponentialBackoffRetryPolicy()
+    {
+        this(builder());
+    }
+
+    private ExponentialBackoffRetryPolicy(Builder builder)
+    {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.maxRetryAfter = builder.maxRetryAfter;
+        this.retryConnectionErrors = builder.retryConnectionErrors;
+        this.retryableMethods = builder.retryableMethods;
+        this.retryableStatusCodes = builder.retryableStatusCodes;
+        this.retryableErrorCodes = builder.retryableErrorCodes;
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    @Override
+    public long getRetryDelay(TransportRequest request, int attempt, TransportResponse response, IOException error)
+    {
+        if (attempt >= maxAttempts || !isRetryable(request, response, error))
+        {
+            return -1;
+        }
+
+        Long retryAfter = response != null ? parseRetryAfter(response.getHeader("Retry-After")) : null;
+        if (retryAfter != null)
+        {
+            return retryAfter <= maxRetryAfter ? retryAfter : -1;
+        }
+
+        return getBackoff(attempt);
+    }
+
+    /**
+        Returns true if the request should be retried after this error, regardless of how
+        many attempts have been made.
+    */
+    protected boolean isRetryable(TransportRequest request, TransportResponse response, IOException error)
+    {
+        if (!retryableMethods.contains(request.getMethod()))
+        {
+            return false;
+        }
+        if (response == null)
+        {
+            return retryConnectionErrors;
+        }
+        if (retryableStatusCodes.contains(response.getStatusCode()))
+        {
+            return true;
+        }
+        return error instanceof TelerivetAPIException
+            && retryableErrorCodes.contains(((TelerivetAPIException) error).getCode());
+    }
+
+    /**
+        Returns the jittered delay in milliseconds before the given retry (1 for the first).
+    */
+    protected long getBackoff(int attempt)
+    {
+        double backoff = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, attempt - 1));
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+        Parses a Retry-After header given either in seconds or as an HTTP date, returning
+        the delay in milliseconds, or null if it is missing or invalid.
+    */
+    static Long parseRetryAfter(String retryAfter)
+    {
+        if (retryAfter == null)
+        {
+            return null;
+        }
+        retryAfter = retryAfter.trim();
+        try
+        {
+            return Math.max(0, Long.parseLong(retryAfter) * 1000);
+        }
+        catch (NumberFormatException ex)
+        {
+        }
+        try
+        {
+            long time = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, time - System.currentTimeMillis());
+        }
+        catch (DateTimeParseException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+        Configures an ExponentialBackoffRetryPolicy.
+    */
+    public static class Builder
+    {
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+        private long maxBackoff = DEFAULT_MAX_BACKOFF;
+        private double multiplier = DEFAULT_MULTIPLIER;
+        private double jitter = DEFAULT_JITTER;
+        private long maxRetryAfter = DEFAULT_MAX_RETRY_AFTER;
+        private boolean retryConnectionErrors = true;
+        private Set<String> retryableMethods = new HashSet<String>(Arrays.asList("GET", "PUT", "DELETE"));
+        private Set<Integer> retryableStatusCodes = new HashSet<Integer>(Arrays.asList(429, 502, 503, 504));
+        private Set<String> retryableErrorCodes = new HashSet<String>();
+
+        private Builder()
+        {
+        }
+
+        /**
+            Maximum number of times a request is sent, including the first attempt.
+        */
+        public Builder setMaxAttempts(int maxAttempts)
+        {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+            Delay in milliseconds before the first retry.
+        */
+        public Builder setInitialBackoff(long initialBackoff)
+        {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+            Maximum delay in milliseconds before any retry (not including Retry-After delays).
+        */
+        public Builder setMaxBackoff(long maxBackoff)
+        {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+            Factor by which the delay increases after each retry.
+        */
+        public Builder setMultiplier(double multiplier)
+        {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+            Maximum fraction (between 0 and 1) by which each delay is randomly reduced.
+        */
+        public Builder setJitter(double jitter)
+        {
+            if (jitter < 0 || jitter > 1)
+            {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+            Longest Retry-After delay in milliseconds that will be waited for.
+        */
+        public Builder setMaxRetryAfter(long maxRetryAfter)
+        {
+            this.maxRetryAfter = maxRetryAfter;
+            return this;
+        }
+
+        /**
+            Whether to retry requests that failed without an HTTP response (e.g. timeouts).
+        */
+        public Builder setRetryConnectionErrors(boolean retryConnectionErrors)
+        {
+            this.retryConnectionErrors = retryConnectionErrors;
+            return this;
+        }
+
+        /**
+            HTTP methods that may be retried. Only add POST if repeating the request
+            is safe for all endpoints this client uses.
+        */
+        public Builder setRetryableMethods(String... methods)
+        {
+            this.retryableMethods = new HashSet<String>(Arrays.asList(methods));
+            return this;
+        }
+
+        public Builder setRetryableStatusCodes(Integer... statusCodes)
+        {
+            this.retryableStatusCodes = new HashSet<Integer>(Arrays.asList(statusCodes));
+            return this;
+        }
+
+        /**
+            API error codes (see TelerivetAPIException.getCode) that may be retried,
+            regardless of the HTTP status code.
+        */
+        public Builder setRetryableErrorCodes(String... errorCodes)
+        {
+            this.retryableErrorCodes = new HashSet<String>(Arrays.asList(errorCodes));
+            return this;
+        }
+
+        public ExponentialBackoffRetryPolicy build()
+        {
+            return new ExponentialBackoffRetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.telerivet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+    Hedges GET requests to reduce tail latency: if no response has arrived after a delay,
+    an identical request is sent, and whichever response arrives first is used (the other
+    is discarded).
+
+    <p>The delay is either fixed, or a percentile (e.g. the 95th) of the latencies recorded
+    for the endpoint in the client's RequestMetrics, once enough requests have been made
+    to it. So that hedging cannot double the load on the API when it is slow, hedged
+    requests are limited to a percentage of GET requests (the budget, 5% by default), with
+    a small allowance for bursts.</p>
+
+    <pre>
+    tr.setHedgingPolicy(HedgingPolicy.builder()
+        .setDelayPercentile(95)
+        .setBudget(5)
+        .build());
+    </pre>
+
+    <p>Only GET requests are hedged, since they are idempotent. A HedgingPolicy keeps the
+    budget state and counters for one client, so it should not be shared between clients.</p>
+*/
+public class HedgingPolicy
+{
+    public static final long DEFAULT_DELAY = 100; // ms
+    public static final double DEFAULT_BUDGET = 5.0; // percent of GET requests
+    public static final int DEFAULT_MIN_SAMPLES = 100;
+
+    // budget tokens are counted in thousandths of a hedged request
+    private static final long TOKENS_PER_HEDGE = 1000;
+    private static final long MAX_TOKENS = 10 * TOKENS_PER_HEDGE;
+
+    private final long delayNanos;
+    private final long minDelayNanos;
+    private final double delayPercentile;
+    private final int minSamples;
+    private final long tokensPerRequest;
+
+    private final AtomicLong tokens;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder hedgeCount = new LongAdder();
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    private HedgingPolicy(Builder builder)
+    {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(builder.delay);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(builder.minDelay);
+        this.delayPercentile = builder.delayPercentile;
+        this.minSamples = builder.minSamples;
+        this.tokensPerRequest = Math.round(builder.budget / 100 * TOKENS_PER_HEDGE);
+        this.tokens = new AtomicLong(Math.min(MAX_TOKENS, tokensPerRequest > 0 ? TOKENS_PER_HEDGE : 0));
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+        Returns how long to wait for a response to a GET request to the given path before
+        hedging it, and adds the request to the budget.
+    */
+    long getDelayNanos(RequestMetrics metrics, String path)
+    {
+        requestCount.increment();
+        if (tokensPerRequest > 0 && tokens.get() < MAX_TOKENS)
+        {
+            tokens.updateAndGet(t -> Math.min(MAX_TOKENS, t + tokensPerRequest));
+        }
+
+        if (delayPercentile > 0)
+        {
+            LatencyHistogram latency = metrics.getLatency("GET", Util.getPathTemplate(path));
+            if (latency != null && latency.getCount() >= minSamples)
+            {
+                long percentileNanos = TimeUnit.MICROSECONDS.toNanos(latency.getValueAtPercentile(delayPercentile));
+                return Math.max(minDelayNanos, percentileNanos);
+            }
+        }
+        return delayNanos;
+    }
+
+    /**
+        Takes a hedged request from the budget, returning false if the budget is used up.
+    */
+    boolean tryAcquireHedge()
+    {
+        while (true)
+        {
+            long current = tokens.get();
+            if (current < TOKENS_PER_HEDGE)
+            {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKENS_PER_HEDGE))
+            {
+                hedgeCount.increment();
+                return true;
+            }
+        }
+    }
+
+    void recordHedgeWin()
+    {
+        hedgeWinCount.increment();
+    }
+
+    /**
+        Number of GET requests that were eligible for hedging.
+    */
+    public long getRequestCount()
+    {
+        return requestCount.sum();
+    }
+
+    /**
+        Number of hedged (duplicate) requests sent.
+    */
+    public long getHedgeCount()
+    {
+        return hedgeCount.sum();
+    }
+
+    /**
+        Number of hedged requests whose response arrived before the original request's.
+    */
+    public long getHedgeWinCount()
+    {
+        return hedgeWinCount.sum();
+    }
+
+    public static class Builder
+    {
+        private long delay = DEFAULT_DELAY;
+        private long minDelay = 10;
+        private double delayPercentile = 0;
+        private int minSamples = DEFAULT_MIN_SAMPLES;
+        private double budget = DEFAULT_BUDGET;
+
+        /**
+            Time in milliseconds to wait for a response before sending a hedged request
+            (default 100), used unless a delay percentile is set and enough latencies have
+            been recorded.
+        */
+        public Builder setDelay(long delay)
+        {
+            if (delay < 0)
+            {
+                throw new IllegalArgumentException("delay must not be negative");
+            }
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+            Uses the given percentile (e.g. 95) of the endpoint's recorded latencies as the
+            delay, once at least minSamples requests have been made to the endpoint.
+        */
+        public Builder setDelayPercentile(double delayPercentile)
+        {
+            if (delayPercentile <= 0 || delayPercentile >= 100)
+            {
+                throw new IllegalArgumentException("delayPercentile must be between 0 and 100");
+            }
+            this.delayPercentile = delayPercentile;
+            return this;
+        }
+
+        /**
+            Minimum delay in milliseconds when using a delay percentile (default 10).
+        */
+        public Builder setMinDelay(long minDelay)
+        {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+            Number of latencies that must be recorded for an endpoint before the delay
+            percentile is used (default 100).
+        */
+        public Builder setMinSamples(int minSamples)
+        {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+            Maximum percentage of GET requests that are hedged (default 5).
+        */
+        public Builder setBudget(double budget)
+        {
+            if (budget < 0 || budget > 100)
+            {
+                throw new IllegalArgumentException("budget must be between 0 and 100");
+            }
+            this.budget = budget;
+            return this;
+        }
+
+        public HedgingPolicy build()
+        {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.telerivet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+    Caches the responses to GET requests made by a TelerivetAPI client, and revalidates
+    them with conditional requests.
+
+    <p>If a response has an ETag or Last-Modified header, the next request for the same
+    URL is sent with If-None-Match or If-Modified-Since, and a 304 Not Modified response
+    is answered from the cache without downloading the body again. Responses without
+    either header are reused without any request until a short TTL expires. Responses
+    with "Cache-Control: no-store" are not cached.</p>
+
+    <pre>
+    tr.setResponseCache(HttpResponseCache.builder()
+        .setMaxSize(1000)
+        .setTtl(5000)
+        .build());
+    </pre>
+
+    <p>Cached responses are removed when the client sends a POST, PUT or DELETE request
+    to the same path (or a parent path). A response to a GET request that was in flight
+    when its path was invalidated is not cached. Each caller receives its own copy of a
+    cached response. The cache is thread-safe, but should only be shared between clients
+    that use the same API key.</p>
+*/
+public class HttpResponseCache
+{
+    private static final int MAX_SEGMENTS = 16;
+    private static final int VERSION_STRIPES = 256;
+
+    private final long ttlNanos;
+    private final Segment[] segments;
+
+    // incremented by each invalidation of a path in the stripe (or of all responses), so
+    // that responses loaded before it are not cached
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    private HttpResponseCache(Builder builder)
+    {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(builder.ttl);
+
+        int numSegments = Math.max(1, Math.min(MAX_SEGMENTS, builder.maxSize / 64));
+        this.segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++)
+        {
+            int segmentSize = builder.maxSize / numSegments + (i < builder.maxSize % numSegments ? 1 : 0);
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+        Returns a copy of the cached response for a URL if it can be used without
+        revalidating it (it had no validators and its TTL has not expired), otherwise null.
+    */
+    Object getFresh(String url)
+    {
+        CachedResponse cached = segmentFor(url).get(url);
+        if (cached == null || cached.hasValidators() || System.nanoTime() - cached.expiresAt > 0)
+        {
+            return null;
+        }
+        hitCount.increment();
+        return Util.deepCopy(cached.data);
+    }
+
+    /**
+        Adds If-None-Match and If-Modified-Since headers to a GET request if a response
+        with validators is cached for its URL (or removes them otherwise), and returns
+        the lookup to pass to getNotModified() or put() when the response arrives.
+    */
+    Lookup prepareRequest(TransportRequest request)
+    {
+        String url = request.getUrl();
+        long version = getVersion(url);
+        CachedResponse cached = segmentFor(url).get(url);
+
+        if (cached != null && cached.hasValidators())
+        {
+            setOrRemoveHeader(request, "If-None-Match", cached.etag);
+            setOrRemoveHeader(request, "If-Modified-Since", cached.lastModified);
+            return new Lookup(cached, version);
+        }
+        request.removeHeader("If-None-Match");
+        request.removeHeader("If-Modified-Since");
+        return new Lookup(null, version);
+    }
+
+    /**
+        Returns a copy of the cached response after the server returned 304 Not Modified.
+    */
+    Object getNotModified(Lookup lookup)
+    {
+        notModifiedCount.increment();
+        return Util.deepCopy(lookup.cached.data);
+    }
+
+    /**
+        Caches a copy of the parsed response to a successful GET request, unless its path
+        (or a parent path) was invalidated since the request was prepared.
+    */
+    void put(String url, TransportResponse response, Object data, Lookup lookup)
+    {
+        missCount.increment();
+
+        String cacheControl = response.getHeader("Cache-Control");
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+
+        if ((cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-store"))
+            || (etag == null && lastModified == null && ttlNanos == 0))
+        {
+            segmentFor(url).remove(url);
+            return;
+        }
+
+        CachedResponse cached = new CachedResponse(etag, lastModified, Util.deepCopy(data), System.nanoTime() + ttlNanos);
+        segmentFor(url).putIfCurrent(url, cached, lookup.version);
+    }
+
+    /**
+        Removes the cached responses for a URL (without query string), including any query
+        string or sub-path, e.g. invalidating https://api.telerivet.com/v1/projects/PJ123/contacts/CT456
+        also removes .../contacts/CT456/groups?page_size=50.
+    */
+    void invalidate(String url)
+    {
+        versions.incrementAndGet(stripeFor(url.hashCode()));
+        for (Segment segment : segments)
+        {
+            segment.removeUnder(url);
+        }
+    }
+
+    public void invalidateAll()
+    {
+        epoch.incrementAndGet();
+        for (Segment segment : segments)
+        {
+            segment.clear();
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public Stats getStats()
+    {
+        return new Stats(hitCount.sum(), notModifiedCount.sum(), missCount.sum(), size());
+    }
+
+    public void resetStats()
+    {
+        hitCount.reset();
+        notModifiedCount.reset();
+        missCount.reset();
+    }
+
+    /**
+        Returns the sum of the versions of the URL's path and each of its parent paths
+        (i.e. of every URL whose invalidation would remove the response), which changes
+        whenever any of them is invalidated, since all versions only increase.
+    */
+    private long getVersion(String url)
+    {
+        int queryIndex = url.indexOf('?');
+        int end = queryIndex != -1 ? queryIndex : url.length();
+        int pathStart = url.indexOf("://") + 3;
+
+        long version = epoch.get();
+        int hash = 0;
+        for (int i = 0; i < end; i++)
+        {
+            char c = url.charAt(i);
+            if (c == '/' && i > pathStart)
+            {
+                // hash of url.substring(0, i), i.e. of a parent path, as invalidate() computes it
+                version += versions.get(stripeFor(hash));
+            }
+            hash = 31 * hash + c;
+        }
+        return version + versions.get(stripeFor(hash));
+    }
+
+    private static int stripeFor(int hash)
+    {
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private Segment segmentFor(String url)
+    {
+        int hash = url.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+    }
+
+    private static void setOrRemoveHeader(TransportRequest request, String name, String value)
+    {
+        if (value != null)
+        {
+            request.setHeader(name, value);
+        }
+        else
+        {
+            request.removeHeader(name);
+        }
+    }
+
+    /**
+        Counts of GET requests answered by the cache since it was created (or since
+        resetStats was called).
+    */
+    public static class Stats
+    {
+        private final long hitCount;
+        private final long notModifiedCount;
+        private final long missCount;
+        private final int size;
+
+        Stats(long hitCount, long notModifiedCount, long missCount, int size)
+        {
+            this.hitCount = hitCount;
+            this.notModifiedCount = notModifiedCount;
+            this.missCount = missCount;
+            this.size = size;
+        }
+
+        /**
+            Number of responses served from the cache without sending a request.
+        */
+        public long getHitCount()
+        {
+            return hitCount;
+        }
+
+        /**
+            Number of responses served from the cache after a 304 Not Modified response.
+        */
+        public long getNotModifiedCount()
+        {
+            return notModifiedCount;
+        }
+
+        /**
+            Number of responses whose body was downloaded.
+        */
+        public long getMissCount()
+        {
+            return missCount;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[hits: " + hitCount + "; not modified: " + notModifiedCount + "; misses: " + missCount
+                + "; size: " + size + "]";
+        }
+    }
+
+    public static class Builder
+    {
+        private int maxSize = 1000;
+        private long ttl = 5000;
+
+        /**
+            Maximum number of cached responses (default 1000).
+        */
+        public Builder setMaxSize(int maxSize)
+        {
+            if (maxSize < 1)
+            {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+            Time in milliseconds that a response without an ETag or Last-Modified header is
+            reused without sending a request (default 5000). Use 0 to only cache responses
+            with validators.
+        */
+        public Builder setTtl(long ttl)
+        {
+            if (ttl < 0)
+            {
+                throw new IllegalArgumentException("ttl must not be negative");
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        public HttpResponseCache build()
+        {
+            return new HttpResponseCache(this);
+        }
+    }
+
+    /**
+        The cached response (if any) that a request was sent to revalidate, and the version
+        of its URL when the request was sent.
+    */
+    static final class Lookup
+    {
+        final CachedResponse cached;
+        final long version;
+
+        Lookup(CachedResponse cached, long version)
+        {
+            this.cached = cached;
+            this.version = version;
+        }
+    }
+
+    static final class CachedResponse
+    {
+        final String etag;
+        final String lastModified;
+        final Object data;
+        final long expiresAt;
+
+        CachedResponse(String etag, String lastModified, Object data, long expiresAt)
+        {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean hasValidators()
+        {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    /**
+        One lock-striped part of the cache, which evicts its least recently used response
+        when full.
+    */
+    private final class Segment
+    {
+        private final LinkedHashMap<String, CachedResponse> map;
+
+        Segment(final int maxSize)
+        {
+            this.map = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest)
+                {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized CachedResponse get(String url)
+        {
+            return map.get(url);
+        }
+
+        /**
+            Adds a response unless its URL was invalidated since loadVersion. Checked while
+            holding the lock that invalidation takes (after updating the version) to remove
+            responses, so a stale response is either not added or removed again.
+        */
+        synchronized void putIfCurrent(String url, CachedResponse cached, long loadVersion)
+        {
+            if (getVersion(url) == loadVersion)
+            {
+                map.put(url, cached);
+            }
+        }
+
+        synchronized void remove(String url)
+        {
+            map.remove(url);
+        }
+
+        /**
+            Removes the responses for a URL and for any query string or sub-path of it.
+        */
+        synchronized void removeUnder(String url)
+        {
+            Iterator<String> it = map.keySet().iterator();
+            while (it.hasNext())
+            {
+                String key = it.next();
+                if (key.startsWith(url) && (key.length() == url.length()
+                    || key.charAt(url.length()) == '?' || key.charAt(url.length()) == '/'))
+                {
+                    it.remove();
+                }
+            }
+        }
+
+        synchronized void clear()
+        {
+            map.clear();
+        }
+
+        synchronized int size()
+        {
+            return map.size();
+        }
+    }
+}
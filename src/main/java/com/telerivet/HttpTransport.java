@@ -0,0 +1,32 @@
+package com.telerivet;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+    Sends HTTP requests to the Telerivet REST API on behalf of a TelerivetAPI client.
+
+    <p>The default implementation is {@link ApacheHttpTransport}. {@link JavaHttpTransport}
+    uses java.net.http and multiplexes concurrent requests over HTTP/2 connections.
+    Implementations must be safe to use from multiple threads.</p>
+*/
+public interface HttpTransport
+{
+    /**
+        Sends the request and returns the response. The caller must close the returned
+        response once it has read the body.
+    */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+        Sends the request without blocking the calling thread. The returned future completes
+        with the response, or completes exceptionally with an IOException if the request
+        could not be sent.
+    */
+    CompletableFuture<TransportResponse> executeAsync(TransportRequest request);
+
+    /**
+        Releases any connections and threads held by this transport.
+    */
+    void close();
+}
@@ -0,0 +1,22 @@
+package com.telerivet;
+
+/**
+    Receives state changes of the circuit breakers and rejections by the bulkheads
+    configured for a TelerivetAPI client, e.g. to alert when sending messages starts
+    failing.
+
+    <p>Called synchronously on the thread that caused the change, so implementations
+    should be fast and thread-safe. Exceptions thrown by listeners are ignored.</p>
+
+    @see TelerivetAPI#addIsolationListener(IsolationListener)
+*/
+public interface IsolationListener
+{
+    default void onCircuitStateChange(EndpointGroup group, CircuitBreaker.State from, CircuitBreaker.State to)
+    {
+    }
+
+    default void onBulkheadRejected(EndpointGroup group, Bulkhead bulkhead)
+    {
+    }
+}
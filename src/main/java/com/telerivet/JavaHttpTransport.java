@@ -0,0 +1,209 @@
+package com.telerivet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.zip.GZIPInputStream;
+
+/**
+    HttpTransport backed by java.net.http.HttpClient.
+
+    <p>Prefers HTTP/2, so many concurrent API calls from different threads are multiplexed
+    over a small number of TLS connections instead of each holding its own socket.
+    Falls back to HTTP/1.1 if the server does not negotiate HTTP/2.</p>
+
+    <p>executeAsync is fully non-blocking, so thousands of asynchronous API calls can be
+    in flight without a thread per call. To keep it that way, it receives the whole response
+    body into a byte[] before the body is parsed; only execute() streams the body from the
+    connection into the parser.</p>
+
+    <p>HttpClient only supports one connect timeout per client (the default constructor
+    uses TelerivetAPI.HTTP_CONNECTION_TIMEOUT), so the connection timeout of each request
+    is not applied on its own. Instead, each request is given a timeout of its connection
+    timeout plus its socket timeout (limited by the time left before its deadline), which
+    covers connecting, sending the request and waiting for the response headers. If the
+    deadline expires while the response body is being read, the body is closed.</p>
+*/
+public class JavaHttpTransport implements HttpTransport
+{
+    private final HttpClient httpClient;
+
+    public JavaHttpTransport()
+    {
+        this(HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(TelerivetAPI.HTTP_CONNECTION_TIMEOUT))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build());
+    }
+
+    /**
+        Uses the given HttpClient, e.g. one configured with a custom executor or SSLContext.
+    */
+    public JavaHttpTransport(HttpClient httpClient)
+    {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException
+    {
+        Deadline deadline = request.getDeadline();
+        if (deadline == null)
+        {
+            return toTransportResponse(send(toHttpRequest(request)));
+        }
+
+        // the request timeout (capped at the remaining time) covers the response headers;
+        // closing the body stream when the deadline expires covers the rest
+        HttpResponse<InputStream> response = send(toHttpRequest(request));
+        final InputStream body = response.body();
+        ScheduledFuture<?> closeTask = deadline.whenExpired(() -> {
+            try
+            {
+                body.close();
+            }
+            catch (IOException ex)
+            {
+                // the request fails anyway
+            }
+        });
+        TransportResponse transportResponse;
+        try
+        {
+            transportResponse = toTransportResponse(response);
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            closeTask.cancel(false);
+            throw ex;
+        }
+        return new TransportResponse(transportResponse.getStatusCode(), transportResponse.getHeaders(),
+            Deadline.cancelOnClose(transportResponse.getBody(), closeTask));
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest httpRequest) throws IOException
+    {
+        try
+        {
+            return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request interrupted");
+        }
+    }
+
+    /**
+        Sends the request using HttpClient.sendAsync. The response body is read
+        asynchronously as well, into a byte[], so no thread is blocked while the request is
+        in flight. (Streaming it with BodyHandlers.ofInputStream would block the thread
+        that parses it until the whole body has arrived.)
+        If the request's deadline expires first, the returned future fails with an
+        HttpTimeoutException and the exchange is cancelled. Cancelling only aborts the
+        exchange on Java 16 and later; on earlier versions the request continues in the
+        background until its request timeout, and its response is discarded.
+    */
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request)
+    {
+        HttpRequest httpRequest;
+        try
+        {
+            httpRequest = toHttpRequest(request);
+        }
+        catch (IOException ex)
+        {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        final CompletableFuture<HttpResponse<byte[]>> sent = httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<TransportResponse> result = sent
+            .thenApply(response -> {
+                InputStream body = new ByteArrayInputStream(response.body());
+                String contentEncoding = response.headers().firstValue("Content-Encoding").orElse(null);
+                if ("gzip".equalsIgnoreCase(contentEncoding))
+                {
+                    try
+                    {
+                        body = new GZIPInputStream(body);
+                    }
+                    catch (IOException ex)
+                    {
+                        throw new CompletionException(ex);
+                    }
+                }
+                return new TransportResponse(response.statusCode(), response.headers().map(), body);
+            });
+
+        Deadline deadline = request.getDeadline();
+        if (deadline != null)
+        {
+            ScheduledFuture<?> cancelTask = deadline.whenExpired(() -> {
+                if (result.completeExceptionally(new HttpTimeoutException("Deadline exceeded")))
+                {
+                    sent.cancel(true);
+                }
+            });
+            result.whenComplete((response, error) -> cancelTask.cancel(false));
+        }
+        return result;
+    }
+
+    @Override
+    public void close()
+    {
+        // java.net.http.HttpClient (before Java 21) releases its connections when it is garbage collected
+    }
+
+    protected HttpRequest toHttpRequest(TransportRequest request) throws IOException
+    {
+        long timeout = (long) request.getConnectionTimeout() + request.getSocketTimeout();
+        Deadline deadline = request.getDeadline();
+        if (deadline != null)
+        {
+            timeout = Math.min(timeout, Math.max(1, deadline.getRemainingMillis()));
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()))
+            .timeout(Duration.ofMillis(timeout))
+            .header("Accept-Encoding", "gzip");
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet())
+        {
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        // HttpClient publishes bodies asynchronously, so streaming bodies are written to a
+        // byte array first (after compression, for gzipped bodies)
+        RequestBody body = request.getBody();
+        HttpRequest.BodyPublisher publisher = body != null
+            ? HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())
+            : HttpRequest.BodyPublishers.noBody();
+
+        return builder.method(request.getMethod(), publisher).build();
+    }
+
+    protected TransportResponse toTransportResponse(HttpResponse<InputStream> response) throws IOException
+    {
+        InputStream body = response.body();
+        String contentEncoding = response.headers().firstValue("Content-Encoding").orElse(null);
+        if ("gzip".equalsIgnoreCase(contentEncoding))
+        {
+            body = new GZIPInputStream(body);
+        }
+        return new TransportResponse(response.statusCode(), response.headers().map(), body);
+    }
+}
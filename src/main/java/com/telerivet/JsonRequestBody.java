@@ -0,0 +1,161 @@
+package com.telerivet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.json.JSONObject;
+
+/**
+    A request body that serializes a JSONObject straight into a gzip stream as it is
+    written to the connection, so that the uncompressed JSON never exists in memory as a
+    whole.
+*/
+class JsonRequestBody extends RequestBody
+{
+    private final JSONObject params;
+    private final int compressionLevel;
+
+    JsonRequestBody(JSONObject params, int compressionLevel)
+    {
+        this.params = params;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    protected void write(OutputStream out) throws IOException
+    {
+        LeveledGZIPOutputStream gzipOut = new LeveledGZIPOutputStream(out, compressionLevel);
+        try
+        {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8), 8192);
+            params.write(writer);
+            writer.flush();
+            gzipOut.finish();
+        }
+        finally
+        {
+            gzipOut.release();
+        }
+    }
+
+    /**
+        Serializes the JSONObject if it is shorter than <code>limit</code> characters,
+        otherwise returns null after writing at most <code>limit</code> characters.
+    */
+    static String toStringIfShorter(JSONObject params, int limit)
+    {
+        BoundedStringWriter writer = new BoundedStringWriter(limit);
+        try
+        {
+            params.write(writer);
+        }
+        catch (RuntimeException ex)
+        {
+            if (writer.isFull())
+            {
+                return null;
+            }
+            throw ex;
+        }
+        return writer.toString();
+    }
+
+    /**
+        A GZIPOutputStream with a configurable compression level, which can release its
+        deflater without closing the underlying stream.
+    */
+    private static class LeveledGZIPOutputStream extends GZIPOutputStream
+    {
+        LeveledGZIPOutputStream(OutputStream out, int level) throws IOException
+        {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+
+        void release()
+        {
+            def.end();
+        }
+    }
+
+    private static class BoundedStringWriter extends Writer
+    {
+        private final StringBuilder builder = new StringBuilder();
+        private final int limit;
+        private boolean full = false;
+
+        BoundedStringWriter(int limit)
+        {
+            this.limit = limit;
+        }
+
+        boolean isFull()
+        {
+            return full;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            checkLimit(len);
+            builder.append(str, off, off + len);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException
+        {
+            checkLimit(csq.length());
+            builder.append(csq);
+            return this;
+        }
+
+        @Override
+        public Writer append(char c) throws IOException
+        {
+            checkLimit(1);
+            builder.append(c);
+            return this;
+        }
+
+        private void append(char[] cbuf, int off, int len) throws IOException
+        {
+            checkLimit(len);
+            builder.append(cbuf, off, len);
+        }
+
+        private void checkLimit(int len) throws IOException
+        {
+            if (builder.length() + len >= limit)
+            {
+                full = true;
+                throw new IOException("Limit reached");
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        @Override
+        public String toString()
+        {
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.telerivet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+    A lock-free histogram of latencies in microseconds, with log-linear buckets in the
+    style of HdrHistogram: values below 128 are recorded exactly, and larger values with a
+    relative error of at most 1/64 (about 1.6%).
+*/
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_SHIFT = 40;
+    private static final int NUM_BUCKETS = SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF;
+    private static final long MAX_VALUE = ((long) SUB_BUCKET_COUNT << MAX_SHIFT) - 1;
+
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram()
+    {
+        this.counts = new AtomicLongArray(NUM_BUCKETS);
+    }
+
+    public void record(long micros)
+    {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(getIndex(value));
+        totalCount.increment();
+        totalValue.add(value);
+        maxValue.accumulate(value);
+    }
+
+    public long getCount()
+    {
+        return totalCount.sum();
+    }
+
+    public long getMax()
+    {
+        return maxValue.get();
+    }
+
+    public double getMean()
+    {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+        Returns the latency in microseconds at or below which the given percentage (0 to
+        100) of recorded values fall, e.g. getValueAtPercentile(99.9) for p999.
+    */
+    public long getValueAtPercentile(double percentile)
+    {
+        long[] snapshot = new long[NUM_BUCKETS];
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++)
+        {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++)
+        {
+            seen += snapshot[i];
+            if (seen >= target)
+            {
+                return Math.min(getHighestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+        Returns a copy of this histogram that is not affected by values recorded later.
+    */
+    public LatencyHistogram copy()
+    {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < NUM_BUCKETS; i++)
+        {
+            long count = counts.get(i);
+            if (count != 0)
+            {
+                copy.counts.set(i, count);
+                copy.totalCount.add(count);
+            }
+        }
+        copy.totalValue.add(totalValue.sum());
+        copy.maxValue.accumulate(maxValue.get());
+        return copy;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[count: " + getCount() + "; p50: " + getValueAtPercentile(50) + "us; p99: " + getValueAtPercentile(99)
+            + "us; p999: " + getValueAtPercentile(99.9) + "us; max: " + getMax() + "us]";
+    }
+
+    private static int getIndex(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (int) (value >>> shift) - SUB_BUCKET_HALF;
+    }
+
+    private static long getHighestValue(int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -1,6 +1,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Date;
@@ -359,6 +360,18 @@ public class Message extends Entity
         api.doRequest("PUT", label.getBaseApiPath() + "/messages/" + getId());
         labelIdsSet.add(label.getId());
     }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>addLabel</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> addLabelAsync(Label label)
+    {
+        return api.doRequestAsync("PUT", label.getBaseApiPath() + "/messages/" + getId(), null, res -> {
+            labelIdsSet.add(label.getId());
+            return null;
+        });
+    }
     
     /**
         <div class='markdown'><p>Removes a label from the given message.</p>
@@ -369,6 +382,18 @@ public class Message extends Entity
         api.doRequest("DELETE", label.getBaseApiPath() + "/messages/" + getId());
         labelIdsSet.remove(label.getId());
     }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>removeLabel</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> removeLabelAsync(Label label)
+    {
+        return api.doRequestAsync("DELETE", label.getBaseApiPath() + "/messages/" + getId(), null, res -> {
+            labelIdsSet.remove(label.getId());
+            return null;
+        });
+    }
     
     private Set<String> labelIdsSet;
     
@@ -407,6 +432,15 @@ public class Message extends Entity
         return (JSONArray) api.doRequest("GET", getBaseApiPath() + "/mms_parts");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getMMSParts</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONArray> getMMSPartsAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/mms_parts", null, res -> (JSONArray) res);
+    }
+
     /**
         <div class='markdown'><p>Saves any fields that have changed for this message.</p>
         </div>
@@ -429,6 +463,15 @@ public class Message extends Entity
         return new Message(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/resend", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>resend</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Message> resendAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/resend", options, res -> new Message(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Cancels sending a message that has not yet been sent. Returns the updated message object.
         Only valid for outgoing messages that are currently in the queued, retrying, or cancelled
@@ -440,6 +483,15 @@ public class Message extends Entity
         return new Message(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/cancel"));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>cancel</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Message> cancelAsync()
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/cancel", null, res -> new Message(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Deletes this message.</p>
         </div>
@@ -449,6 +501,15 @@ public class Message extends Entity
         api.doRequest("DELETE", getBaseApiPath());
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>delete</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> deleteAsync()
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath(), null, res -> null);
+    }
+
     public String getId()
     {
         return (String) get("id");
@@ -0,0 +1,345 @@
+package com.telerivet;
+
+import com.telerivet.exception.TelerivetAPIException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+    Buffers individual messages and sends them in batches using Project.sendMulti, so that
+    many messages share one API request instead of each making its own.
+
+    <p>A batch is sent when it reaches the maximum batch size (100 by default), or when the
+    oldest buffered message has waited for the linger time, whichever comes first. Several
+    batches may be in flight at the same time. Each call to send() returns a future that
+    completes with that message's own Message object, or exceptionally with the error
+    for that message (or for the whole batch, if the sendMulti request failed).</p>
+
+    <p>A message fails if its sendMulti result has an error, a status of "failed", or an
+    error_message. The Message object of a successful send only has the fields that
+    sendMulti returns for each message; call Project.getMessageById to load the rest.</p>
+
+    <pre>
+    MessageBatcher batcher = MessageBatcher.builder(project).setLingerTime(20).build();
+    CompletableFuture&lt;Message&gt; future = batcher.send(Util.options("to_number", "555-0001", "content", "hi"));
+    ...
+    batcher.close();
+    </pre>
+
+    <p>MessageBatcher is thread-safe.</p>
+*/
+public class MessageBatcher implements Closeable
+{
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_LINGER_TIME = 10; // ms
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+    public static final int DEFAULT_MAX_BUFFERED_MESSAGES = 10000;
+
+    private final Project project;
+    private final JSONObject defaults;
+    private final int maxBatchSize;
+    private final long lingerTime;
+    private final int maxInFlightBatches;
+
+    private final Semaphore bufferPermits;
+    private final ScheduledExecutorService timer;
+
+    private List<PendingMessage> buffer = new ArrayList<PendingMessage>();
+    private ScheduledFuture<?> lingerTask;
+    private final ArrayDeque<List<PendingMessage>> readyBatches = new ArrayDeque<List<PendingMessage>>();
+    private int inFlightBatches = 0;
+    private boolean closed = false;
+
+    private MessageBatcher(Builder builder)
+    {
+        this.project = builder.project;
+        this.defaults = builder.defaults;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.lingerTime = builder.lingerTime;
+        this.maxInFlightBatches = builder.maxInFlightBatches;
+        this.bufferPermits = new Semaphore(builder.maxBufferedMessages);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telerivet-message-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder(Project project)
+    {
+        return new Builder(project);
+    }
+
+    /**
+        Adds a message to the next batch. The options are the same as those of one item in
+        the <code>messages</code> parameter of Project.sendMulti (e.g. to_number, content).
+
+        <p>Blocks if the maximum number of buffered messages has been reached, until earlier
+        batches complete.</p>
+    */
+    public CompletableFuture<Message> send(JSONObject options)
+    {
+        try
+        {
+            bufferPermits.acquire();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            CompletableFuture<Message> result = new CompletableFuture<Message>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        PendingMessage pending = new PendingMessage(options);
+
+        synchronized (this)
+        {
+            if (closed)
+            {
+                bufferPermits.release();
+                throw new IllegalStateException("MessageBatcher is closed");
+            }
+
+            buffer.add(pending);
+            if (buffer.size() >= maxBatchSize)
+            {
+                enqueueBuffer();
+            }
+            else if (buffer.size() == 1 && lingerTime > 0)
+            {
+                lingerTask = timer.schedule(() -> flush(), lingerTime, TimeUnit.MILLISECONDS);
+            }
+            else if (lingerTime <= 0)
+            {
+                enqueueBuffer();
+            }
+        }
+        return pending.future;
+    }
+
+    /**
+        Sends all buffered messages immediately, without waiting for the linger time.
+    */
+    public synchronized void flush()
+    {
+        if (!buffer.isEmpty())
+        {
+            enqueueBuffer();
+        }
+    }
+
+    /**
+        Sends any buffered messages and stops accepting new ones. Futures for messages that
+        are still in flight complete normally after close() returns.
+    */
+    @Override
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            flush();
+            closed = true;
+        }
+        timer.shutdown();
+    }
+
+    // called while holding the lock
+    private void enqueueBuffer()
+    {
+        if (lingerTask != null)
+        {
+            lingerTask.cancel(false);
+            lingerTask = null;
+        }
+        readyBatches.add(buffer);
+        buffer = new ArrayList<PendingMessage>();
+        dispatchReadyBatches();
+    }
+
+    // called while holding the lock
+    private void dispatchReadyBatches()
+    {
+        while (inFlightBatches < maxInFlightBatches && !readyBatches.isEmpty())
+        {
+            inFlightBatches++;
+            sendBatch(readyBatches.poll());
+        }
+    }
+
+    private void sendBatch(final List<PendingMessage> batch)
+    {
+        JSONArray messages = new JSONArray();
+        for (PendingMessage pending : batch)
+        {
+            messages.put(pending.options);
+        }
+
+        JSONObject options = new JSONObject();
+        if (defaults != null)
+        {
+            Iterator<String> keysIter = defaults.keys();
+            while (keysIter.hasNext())
+            {
+                String key = keysIter.next();
+                options.put(key, defaults.get(key));
+            }
+        }
+        options.put("messages", messages);
+
+        project.sendMultiAsync(options).whenComplete((res, error) -> {
+            try
+            {
+                completeBatch(batch, res, error);
+            }
+            finally
+            {
+                bufferPermits.release(batch.size());
+                synchronized (MessageBatcher.this)
+                {
+                    inFlightBatches--;
+                    dispatchReadyBatches();
+                }
+            }
+        });
+    }
+
+    private void completeBatch(List<PendingMessage> batch, JSONObject response, Throwable error)
+    {
+        if (error != null)
+        {
+            for (PendingMessage pending : batch)
+            {
+                pending.future.completeExceptionally(error);
+            }
+            return;
+        }
+
+        JSONArray results = response.optJSONArray("messages");
+        int numResults = results != null ? results.length() : 0;
+
+        for (int i = 0; i < batch.size(); i++)
+        {
+            PendingMessage pending = batch.get(i);
+            JSONObject result = i < numResults ? results.optJSONObject(i) : null;
+            if (result == null)
+            {
+                pending.future.completeExceptionally(new IOException("Missing result for message " + i + " in sendMulti response"));
+            }
+            else if (result.optJSONObject("error") != null)
+            {
+                pending.future.completeExceptionally(TelerivetAPI.createException(result.getJSONObject("error")));
+            }
+            else if ("failed".equals(result.optString("status")) || result.optString("error_message").length() > 0)
+            {
+                String errorMessage = result.optString("error_message");
+                pending.future.completeExceptionally(new TelerivetAPIException(
+                    errorMessage.length() > 0 ? errorMessage : "Message " + result.optString("id") + " failed", "message_failed"));
+            }
+            else
+            {
+                pending.future.complete(new Message(project.api, result));
+            }
+        }
+    }
+
+    private static class PendingMessage
+    {
+        final JSONObject options;
+        final CompletableFuture<Message> future = new CompletableFuture<Message>();
+
+        PendingMessage(JSONObject options)
+        {
+            this.options = options;
+        }
+    }
+
+    /**
+        Configures a MessageBatcher.
+    */
+    public static class Builder
+    {
+        private final Project project;
+        private JSONObject defaults;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private long lingerTime = DEFAULT_LINGER_TIME;
+        private int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+        private int maxBufferedMessages = DEFAULT_MAX_BUFFERED_MESSAGES;
+
+        private Builder(Project project)
+        {
+            this.project = project;
+        }
+
+        /**
+            Top-level sendMulti parameters applied to every batch (e.g. route_id,
+            message_type, status_callback_url).
+        */
+        public Builder setDefaults(JSONObject defaults)
+        {
+            this.defaults = defaults;
+            return this;
+        }
+
+        /**
+            Maximum number of messages per sendMulti request (at most 100).
+        */
+        public Builder setMaxBatchSize(int maxBatchSize)
+        {
+            if (maxBatchSize < 1 || maxBatchSize > 100)
+            {
+                throw new IllegalArgumentException("maxBatchSize must be between 1 and 100");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+            Maximum time in milliseconds that a message waits in the buffer for more messages
+            to join its batch. A value &lt;= 0 sends each message as soon as possible.
+        */
+        public Builder setLingerTime(long lingerTime)
+        {
+            this.lingerTime = lingerTime;
+            return this;
+        }
+
+        /**
+            Maximum number of sendMulti requests in flight at the same time.
+        */
+        public Builder setMaxInFlightBatches(int maxInFlightBatches)
+        {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+            Maximum number of messages that may be buffered or in flight before send() blocks.
+        */
+        public Builder setMaxBufferedMessages(int maxBufferedMessages)
+        {
+            this.maxBufferedMessages = maxBufferedMessages;
+            return this;
+        }
+
+        public MessageBatcher build()
+        {
+            return new MessageBatcher(this);
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -47,6 +48,15 @@ public class Organization extends Entity
         return new Project(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/projects", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>createProject</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Project> createProjectAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/projects", options, res -> new Project(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Saves any fields that have changed for this organization.</p>
         </div>
@@ -66,6 +76,15 @@ public class Organization extends Entity
         return (JSONObject) api.doRequest("GET", getBaseApiPath() + "/billing");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getBillingDetails</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> getBillingDetailsAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/billing", null, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Retrieves the current usage count associated with a particular service plan limit. Available
         usage types are <code>phones</code>, <code>projects</code>, <code>users</code>, <code>contacts</code>, <code>messages_day</code>,
@@ -77,6 +96,15 @@ public class Organization extends Entity
         return (Integer) api.doRequest("GET", getBaseApiPath() + "/usage/" + usage_type);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getUsage</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Integer> getUsageAsync(String usage_type)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/usage/" + usage_type, null, res -> (Integer) res);
+    }
+
     /**
         <div class='markdown'><p>Retrieves statistics about messages sent or received via Telerivet. This endpoint returns
         historical data that is computed shortly after midnight each day in the project's time zone,
@@ -88,6 +116,15 @@ public class Organization extends Entity
         return (JSONObject) api.doRequest("GET", getBaseApiPath() + "/message_stats", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getMessageStats</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> getMessageStatsAsync(JSONObject options)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/message_stats", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Queries projects in this organization.</p>
         </div>
@@ -0,0 +1,443 @@
+package com.telerivet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+    Scans the results of a query in parallel by splitting it into N time_created windows
+    and iterating one APICursor per window at the same time.
+
+    <p>Results are passed to a consumer either as soon as they arrive from any window
+    (unordered), or merged in ascending order of time_created (ordered). Ordered mode
+    iterates each window with the default sort order in ascending direction, which for
+    messages and contacts is the order they were created, so it rejects query options
+    that ask for a different sort or sort_dir. In unordered mode
+    the consumer is called concurrently from multiple threads and must be thread-safe.
+    In ordered mode the consumer is called only from the thread that calls forEach(), and
+    each window buffers at most <code>bufferSize</code> items ahead of the consumer.</p>
+
+    <p>Created via Project.parallelQueryMessages and Project.parallelQueryContacts.</p>
+*/
+public class ParallelScan<T>
+{
+    private static final Object END = new Object();
+
+    private final TelerivetAPI api;
+    private final Class<T> itemClass;
+    private final String path;
+    private final JSONObject options;
+
+    private int partitions = 4;
+    private Executor executor;
+    private boolean ordered = false;
+    private int bufferSize = 1000;
+    private int prefetchDepth = 0;
+    private Long minTime;
+    private Long maxTime;
+
+    public ParallelScan(TelerivetAPI api, Class<T> itemClass, String path, JSONObject options)
+    {
+        this.api = api;
+        this.itemClass = itemClass;
+        this.path = path;
+        this.options = options != null ? options : new JSONObject();
+    }
+
+    /**
+        Number of time windows (and concurrent cursors) to split the query into.
+    */
+    public ParallelScan<T> partitions(int partitions)
+    {
+        if (partitions < 1)
+        {
+            throw new IllegalArgumentException("partitions must be at least 1");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+        Executor that runs the cursor for each window. If not set, a thread pool with one
+        thread per partition is created for each call to forEach().
+    */
+    public ParallelScan<T> executor(Executor executor)
+    {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+        If true, results are passed to the consumer in ascending order of time_created.
+        forEach() then throws IllegalArgumentException if the query options set sort to
+        anything other than "default" or sort_dir to anything other than "asc".
+    */
+    public ParallelScan<T> ordered(boolean ordered)
+    {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+        Maximum number of items each window may buffer ahead of the consumer in ordered mode.
+    */
+    public ParallelScan<T> bufferSize(int bufferSize)
+    {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+        Page prefetch depth for each window's cursor (see APICursor.prefetch).
+    */
+    public ParallelScan<T> prefetch(int depth)
+    {
+        this.prefetchDepth = depth;
+        return this;
+    }
+
+    /**
+        Restricts the scan to items with time_created &gt;= minTime and &lt; maxTime (UNIX
+        timestamps). Overrides any time_created[min] / time_created[max] query options.
+        If not set, the range is taken from the query options, or else determined with two
+        extra API requests for the oldest and newest matching item.
+    */
+    public ParallelScan<T> timeRange(long minTime, long maxTime)
+    {
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        return this;
+    }
+
+    /**
+        Runs the scan, blocking until all windows have been fully iterated. If a request
+        or the consumer fails, the remaining windows are cancelled and the exception is
+        rethrown.
+    */
+    public void forEach(final Consumer<? super T> consumer) throws IOException
+    {
+        if (ordered)
+        {
+            String sort = options.optString("sort", "default");
+            String sortDir = options.optString("sort_dir", "asc");
+            if (!"default".equals(sort) || !"asc".equals(sortDir))
+            {
+                throw new IllegalArgumentException("Ordered parallel scans return items in ascending order of time_created, "
+                    + "but the query options have sort=" + sort + " and sort_dir=" + sortDir);
+            }
+        }
+
+        JSONObject baseOptions = copyOptions(options);
+        JSONObject timeCreated = removeTimeCreated(baseOptions);
+
+        Long min = minTime != null ? minTime : Util.toLong(Util.convertNull(timeCreated.opt("min")));
+        Long max = maxTime != null ? maxTime : Util.toLong(Util.convertNull(timeCreated.opt("max")));
+        if (min == null)
+        {
+            min = findBoundaryTime(baseOptions, "asc");
+        }
+        if (max == null)
+        {
+            Long newest = findBoundaryTime(baseOptions, "desc");
+            max = newest != null ? newest + 1 : null;
+        }
+        if (min == null || max == null || min >= max)
+        {
+            return; // no matching items
+        }
+
+        List<JSONObject> windows = getWindows(baseOptions, min, max);
+
+        ExecutorService ownExecutor = null;
+        Executor exec = executor;
+        if (exec == null)
+        {
+            ownExecutor = Executors.newFixedThreadPool(windows.size());
+            exec = ownExecutor;
+        }
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try
+        {
+            if (ordered)
+            {
+                forEachOrdered(windows, exec, consumer, cancelled);
+            }
+            else
+            {
+                forEachUnordered(windows, exec, consumer, cancelled);
+            }
+        }
+        finally
+        {
+            cancelled.set(true);
+            if (ownExecutor != null)
+            {
+                ownExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void forEachUnordered(List<JSONObject> windows, Executor exec, final Consumer<? super T> consumer,
+        final AtomicBoolean cancelled) throws IOException
+    {
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for (final JSONObject windowOptions : windows)
+        {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try
+                {
+                    Iterator<T> cursor = newCursor(windowOptions);
+                    while (!cancelled.get() && cursor.hasNext())
+                    {
+                        consumer.accept(cursor.next());
+                    }
+                }
+                catch (RuntimeException | Error ex)
+                {
+                    cancelled.set(true);
+                    throw ex;
+                }
+            }, exec));
+        }
+
+        for (CompletableFuture<Void> future : futures)
+        {
+            try
+            {
+                future.join();
+            }
+            catch (RuntimeException ex)
+            {
+                cancelled.set(true);
+                throw rethrow(TelerivetAPI.unwrapCompletionException(ex));
+            }
+        }
+    }
+
+    private void forEachOrdered(List<JSONObject> windows, Executor exec, Consumer<? super T> consumer,
+        final AtomicBoolean cancelled) throws IOException
+    {
+        List<BlockingQueue<Object>> queues = new ArrayList<BlockingQueue<Object>>();
+        for (final JSONObject windowOptions : windows)
+        {
+            final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(bufferSize + 1);
+            queues.add(queue);
+            exec.execute(() -> {
+                try
+                {
+                    Iterator<T> cursor = newCursor(windowOptions);
+                    while (!cancelled.get() && cursor.hasNext())
+                    {
+                        put(queue, cursor.next(), cancelled);
+                    }
+                    putLast(queue, END, cancelled);
+                }
+                catch (Throwable ex)
+                {
+                    putLast(queue, new ScanFailure(ex), cancelled);
+                }
+            });
+        }
+
+        for (BlockingQueue<Object> queue : queues)
+        {
+            while (true)
+            {
+                Object item;
+                try
+                {
+                    item = queue.take();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Parallel scan interrupted");
+                }
+
+                if (item == END)
+                {
+                    break;
+                }
+                if (item instanceof ScanFailure)
+                {
+                    throw rethrow(((ScanFailure) item).error);
+                }
+                consumer.accept(itemClass.cast(item));
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item, AtomicBoolean cancelled)
+    {
+        try
+        {
+            while (!cancelled.get() && !queue.offer(item, 100, TimeUnit.MILLISECONDS))
+            {
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+        Enqueues END or a ScanFailure, even if the scan has been cancelled, so the consumer
+        can never wait forever for a window. Once cancelled nobody reads the buffered items,
+        so they are dropped to make room.
+    */
+    private static void putLast(BlockingQueue<Object> queue, Object marker, AtomicBoolean cancelled)
+    {
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                if (queue.offer(marker, 100, TimeUnit.MILLISECONDS))
+                {
+                    break;
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                interrupted = true;
+            }
+            if (cancelled.get())
+            {
+                queue.clear();
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Iterator<T> newCursor(JSONObject windowOptions)
+    {
+        APICursor<T> cursor = api.newCursor(itemClass, path, windowOptions);
+        if (prefetchDepth > 0)
+        {
+            cursor.prefetch(prefetchDepth);
+        }
+        return cursor;
+    }
+
+    private List<JSONObject> getWindows(JSONObject baseOptions, long min, long max)
+    {
+        int numWindows = (int) Math.min(partitions, max - min);
+        long span = max - min;
+
+        List<JSONObject> windows = new ArrayList<JSONObject>();
+        for (int i = 0; i < numWindows; i++)
+        {
+            long windowMin = min + span * i / numWindows;
+            long windowMax = min + span * (i + 1) / numWindows;
+
+            JSONObject windowOptions = copyOptions(baseOptions);
+            windowOptions.put("time_created", Util.options("min", windowMin, "max", windowMax));
+            if (ordered)
+            {
+                windowOptions.put("sort", "default");
+                windowOptions.put("sort_dir", "asc");
+            }
+            windows.add(windowOptions);
+        }
+        return windows;
+    }
+
+    private Long findBoundaryTime(JSONObject baseOptions, String sortDir) throws IOException
+    {
+        JSONObject requestParams = copyOptions(baseOptions);
+        requestParams.put("sort", "default");
+        requestParams.put("sort_dir", sortDir);
+        requestParams.put("page_size", 1);
+
+        JSONObject response = (JSONObject) api.doRequest("GET", path, requestParams);
+        JSONArray data = response.getJSONArray("data");
+        if (data.length() == 0)
+        {
+            return null;
+        }
+        return Util.toLong(Util.convertNull(data.getJSONObject(0).opt("time_created")));
+    }
+
+    private static JSONObject copyOptions(JSONObject options)
+    {
+        JSONObject copy = new JSONObject();
+        Iterator<String> keysIter = options.keys();
+        while (keysIter.hasNext())
+        {
+            String key = keysIter.next();
+            copy.put(key, options.get(key));
+        }
+        return copy;
+    }
+
+    /**
+        Removes time_created filters from the options, whether given as a nested object or
+        as "time_created[min]" / "time_created[max]" keys, and returns them as an object.
+    */
+    private static JSONObject removeTimeCreated(JSONObject options)
+    {
+        JSONObject timeCreated = new JSONObject();
+        Object nested = options.remove("time_created");
+        if (nested instanceof JSONObject)
+        {
+            timeCreated = (JSONObject) nested;
+        }
+        if (options.has("time_created[min]"))
+        {
+            timeCreated.put("min", options.remove("time_created[min]"));
+        }
+        if (options.has("time_created[max]"))
+        {
+            timeCreated.put("max", options.remove("time_created[max]"));
+        }
+        return timeCreated;
+    }
+
+    private static IOException rethrow(Throwable ex)
+    {
+        if (ex instanceof RuntimeException && ex.getCause() instanceof IOException)
+        {
+            ex = ex.getCause();
+        }
+        if (ex instanceof IOException)
+        {
+            return (IOException) ex;
+        }
+        if (ex instanceof RuntimeException)
+        {
+            throw (RuntimeException) ex;
+        }
+        if (ex instanceof Error)
+        {
+            throw (Error) ex;
+        }
+        return new IOException(ex);
+    }
+
+    private static class ScanFailure
+    {
+        final Throwable error;
+
+        ScanFailure(Throwable error)
+        {
+            this.error = error;
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -89,6 +90,15 @@ public class Project extends Entity
         return new Message(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/messages/send", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>sendMessage</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Message> sendMessageAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/messages/send", options, res -> new Message(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Sends a text message (optionally with mail-merge templates) or voice call to a group or a
         list of up to 500 phone numbers.</p>
@@ -103,6 +113,15 @@ public class Project extends Entity
         return new Broadcast(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/send_broadcast", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>sendBroadcast</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Broadcast> sendBroadcastAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/send_broadcast", options, res -> new Broadcast(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Sends up to 100 different messages in a single API request. This method is significantly
         faster than sending a separate API request for each message.</p>
@@ -113,6 +132,15 @@ public class Project extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/send_multi", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>sendMulti</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> sendMultiAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/send_multi", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>(Deprecated) Send a message a to group or a list of phone numbers.
         This method is only needed to maintain backward compatibility with
@@ -125,6 +153,15 @@ public class Project extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/messages/send_batch", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>sendMessages</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> sendMessagesAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/messages/send_batch", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Schedules a message to a group or single contact. Note that Telerivet only sends scheduled
         messages approximately once every 15 seconds, so it is not possible to control the exact
@@ -144,6 +181,15 @@ public class Project extends Entity
         return new ScheduledMessage(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/scheduled", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>scheduleMessage</code>.</p>
+        </div>
+    */
+    public CompletableFuture<ScheduledMessage> scheduleMessageAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/scheduled", options, res -> new ScheduledMessage(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Creates a relative scheduled message. This allows scheduling messages on a different date
         for each contact, for example on their birthday, a certain number of days before an
@@ -166,6 +212,15 @@ public class Project extends Entity
         return new RelativeScheduledMessage(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/relative_scheduled", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>createRelativeScheduledMessage</code>.</p>
+        </div>
+    */
+    public CompletableFuture<RelativeScheduledMessage> createRelativeScheduledMessageAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/relative_scheduled", options, res -> new RelativeScheduledMessage(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Add an incoming message to Telerivet. Acts the same as if the message was received by a
         phone. Also triggers any automated services that apply to the message.</p>
@@ -176,6 +231,15 @@ public class Project extends Entity
         return new Message(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/messages/receive", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>receiveMessage</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Message> receiveMessageAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/messages/receive", options, res -> new Message(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Retrieves OR creates and possibly updates a contact by name or phone number.</p>
         
@@ -198,6 +262,15 @@ public class Project extends Entity
         return new Contact(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/contacts", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getOrCreateContact</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Contact> getOrCreateContactAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/contacts", options, res -> new Contact(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Creates and/or updates up to 200 contacts in a single API call. When creating or updating a
         large number of contacts, this method is significantly faster than sending a separate API
@@ -217,6 +290,15 @@ public class Project extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/import_contacts", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>importContacts</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> importContactsAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/import_contacts", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Queries contacts within the given project.</p>
         </div>
@@ -231,13 +313,33 @@ public class Project extends Entity
         return queryContacts(null);
     }
 
+    /**
+        <div class='markdown'><p>Prepares a parallel scan of contacts within the given project. The query is
+        split into time_created windows that are fetched concurrently; call <code>forEach</code> on the
+        returned object to run it.</p>
+        </div>
+    */
+    public ParallelScan<Contact> parallelQueryContacts(JSONObject options)
+    {
+        return new ParallelScan<Contact>(api, Contact.class, getBaseApiPath() + "/contacts", options);
+    }
+
     /**
         <div class='markdown'><p>Retrieves the contact with the given ID.</p>
         </div>
     */
     public Contact getContactById(String id) throws IOException
     {
-        return new Contact(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/contacts/" + id));
+        return api.getCachedEntity(Contact.class, id, getBaseApiPath() + "/contacts/" + id, data -> new Contact(api, data));
+    }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getContactById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Contact> getContactByIdAsync(String id)
+    {
+        return api.getCachedEntityAsync(Contact.class, id, getBaseApiPath() + "/contacts/" + id, data -> new Contact(api, data));
     }
 
     /**
@@ -269,7 +371,16 @@ public class Project extends Entity
     */
     public Phone getPhoneById(String id) throws IOException
     {
-        return new Phone(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/phones/" + id));
+        return api.getCachedEntity(Phone.class, id, getBaseApiPath() + "/phones/" + id, data -> new Phone(api, data));
+    }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getPhoneById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Phone> getPhoneByIdAsync(String id)
+    {
+        return api.getCachedEntityAsync(Phone.class, id, getBaseApiPath() + "/phones/" + id, data -> new Phone(api, data));
     }
 
     /**
@@ -295,6 +406,17 @@ public class Project extends Entity
         return queryMessages(null);
     }
 
+    /**
+        <div class='markdown'><p>Prepares a parallel scan of messages within the given project. The query is
+        split into time_created windows that are fetched concurrently; call <code>forEach</code> on the
+        returned object to run it.</p>
+        </div>
+    */
+    public ParallelScan<Message> parallelQueryMessages(JSONObject options)
+    {
+        return new ParallelScan<Message>(api, Message.class, getBaseApiPath() + "/messages", options);
+    }
+
     /**
         <div class='markdown'><p>Retrieves the message with the given ID.</p>
         </div>
@@ -304,6 +426,15 @@ public class Project extends Entity
         return new Message(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/messages/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getMessageById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Message> getMessageByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/messages/" + id, null, res -> new Message(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the Telerivet message with the given ID without making an API request.</p>
         </div>
@@ -336,6 +467,15 @@ public class Project extends Entity
         return new Broadcast(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/broadcasts/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getBroadcastById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Broadcast> getBroadcastByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/broadcasts/" + id, null, res -> new Broadcast(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the Telerivet broadcast with the given ID without making an API request.</p>
         </div>
@@ -373,6 +513,15 @@ public class Project extends Entity
         return new Task(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/tasks", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>createTask</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Task> createTaskAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/tasks", options, res -> new Task(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Queries batch tasks within the given project.</p>
         </div>
@@ -396,6 +545,15 @@ public class Project extends Entity
         return new Task(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/tasks/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getTaskById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Task> getTaskByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/tasks/" + id, null, res -> new Task(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the task with the given ID without making an API request.</p>
         </div>
@@ -428,13 +586,31 @@ public class Project extends Entity
         return new Group(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/groups", Util.options("name", name)));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getOrCreateGroup</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Group> getOrCreateGroupAsync(String name)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/groups", Util.options("name", name), res -> new Group(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Retrieves the group with the given ID.</p>
         </div>
     */
     public Group getGroupById(String id) throws IOException
     {
-        return new Group(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/groups/" + id));
+        return api.getCachedEntity(Group.class, id, getBaseApiPath() + "/groups/" + id, data -> new Group(api, data));
+    }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getGroupById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Group> getGroupByIdAsync(String id)
+    {
+        return api.getCachedEntityAsync(Group.class, id, getBaseApiPath() + "/groups/" + id, data -> new Group(api, data));
     }
 
     /**
@@ -469,13 +645,31 @@ public class Project extends Entity
         return new Label(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/labels", Util.options("name", name)));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getOrCreateLabel</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Label> getOrCreateLabelAsync(String name)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/labels", Util.options("name", name), res -> new Label(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Retrieves the label with the given ID.</p>
         </div>
     */
     public Label getLabelById(String id) throws IOException
     {
-        return new Label(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/labels/" + id));
+        return api.getCachedEntity(Label.class, id, getBaseApiPath() + "/labels/" + id, data -> new Label(api, data));
+    }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getLabelById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Label> getLabelByIdAsync(String id)
+    {
+        return api.getCachedEntityAsync(Label.class, id, getBaseApiPath() + "/labels/" + id, data -> new Label(api, data));
     }
 
     /**
@@ -510,6 +704,15 @@ public class Project extends Entity
         return new DataTable(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/tables", Util.options("name", name)));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getOrCreateDataTable</code>.</p>
+        </div>
+    */
+    public CompletableFuture<DataTable> getOrCreateDataTableAsync(String name)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/tables", Util.options("name", name), res -> new DataTable(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Retrieves the data table with the given ID.</p>
         </div>
@@ -519,6 +722,15 @@ public class Project extends Entity
         return new DataTable(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/tables/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getDataTableById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<DataTable> getDataTableByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/tables/" + id, null, res -> new DataTable(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the data table with the given ID without making an API request.</p>
         </div>
@@ -565,6 +777,15 @@ public class Project extends Entity
         return new ScheduledMessage(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/scheduled/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getScheduledMessageById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<ScheduledMessage> getScheduledMessageByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/scheduled/" + id, null, res -> new ScheduledMessage(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the scheduled message with the given ID without making an API request.</p>
         </div>
@@ -583,6 +804,15 @@ public class Project extends Entity
         return new RelativeScheduledMessage(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/relative_scheduled/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getRelativeScheduledMessageById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<RelativeScheduledMessage> getRelativeScheduledMessageByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/relative_scheduled/" + id, null, res -> new RelativeScheduledMessage(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the relative scheduled message with the given ID without making an API request.</p>
         </div>
@@ -611,6 +841,15 @@ public class Project extends Entity
         return new Service(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/services", options));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>createService</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Service> createServiceAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/services", options, res -> new Service(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Queries services within the given project.</p>
         </div>
@@ -634,6 +873,15 @@ public class Project extends Entity
         return new Service(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/services/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getServiceById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Service> getServiceByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/services/" + id, null, res -> new Service(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the service with the given ID without making an API request.</p>
         </div>
@@ -683,6 +931,15 @@ public class Project extends Entity
         return new Route(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/routes/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getRouteById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Route> getRouteByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/routes/" + id, null, res -> new Route(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes a custom route by ID without making an API request.</p>
         </div>
@@ -703,6 +960,15 @@ public class Project extends Entity
         return (JSONArray) api.doRequest("GET", getBaseApiPath() + "/users");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getUsers</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONArray> getUsersAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/users", null, res -> (JSONArray) res);
+    }
+
     /**
         <div class='markdown'><p>Returns information about each airtime transaction.</p>
         </div>
@@ -726,6 +992,15 @@ public class Project extends Entity
         return new AirtimeTransaction(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/airtime_transactions/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getAirtimeTransactionById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<AirtimeTransaction> getAirtimeTransactionByIdAsync(String id)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/airtime_transactions/" + id, null, res -> new AirtimeTransaction(api, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes an airtime transaction by ID without making an API request.</p>
         </div>
@@ -747,6 +1022,15 @@ public class Project extends Entity
         return (JSONArray) api.doRequest("GET", getBaseApiPath() + "/contact_fields");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getContactFields</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONArray> getContactFieldsAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/contact_fields", null, res -> (JSONArray) res);
+    }
+
     /**
         <div class='markdown'><p>Allows customizing how a custom contact field is displayed in the Telerivet web app.</p>
         
@@ -759,6 +1043,15 @@ public class Project extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/contact_fields/" + variable, options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>setContactFieldMetadata</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> setContactFieldMetadataAsync(String variable, JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/contact_fields/" + variable, options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Gets a list of all custom fields defined for messages in this project. The return value is
         an array of objects with the properties 'name', 'variable', 'type', 'order', 'readonly', and
@@ -771,6 +1064,15 @@ public class Project extends Entity
         return (JSONArray) api.doRequest("GET", getBaseApiPath() + "/message_fields");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getMessageFields</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONArray> getMessageFieldsAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/message_fields", null, res -> (JSONArray) res);
+    }
+
     /**
         <div class='markdown'><p>Allows customizing how a custom message field is displayed in the Telerivet web app.</p>
         
@@ -783,6 +1085,15 @@ public class Project extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/message_fields/" + variable, options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>setMessageFieldMetadata</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> setMessageFieldMetadataAsync(String variable, JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/message_fields/" + variable, options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Retrieves statistics about messages sent or received via Telerivet. This endpoint returns
         historical data that is computed shortly after midnight each day in the project's time zone,
@@ -794,6 +1105,15 @@ public class Project extends Entity
         return (JSONObject) api.doRequest("GET", getBaseApiPath() + "/message_stats", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getMessageStats</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> getMessageStatsAsync(JSONObject options)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/message_stats", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Saves any fields or custom variables that have changed for the project.</p>
         </div>
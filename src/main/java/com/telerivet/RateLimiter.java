@@ -0,0 +1,39 @@
+package com.telerivet;
+
+/**
+    Paces outgoing API requests on the client side.
+
+    <p>Implementations must be thread-safe, and should avoid locking, since every request
+    made by every thread sharing the TelerivetAPI client passes through them.</p>
+
+    @see TelerivetAPI#setRateLimiter(RateLimiter)
+*/
+public interface RateLimiter
+{
+    /**
+        Reserves a permit for one request, if it will become available within
+        <code>maxWaitNanos</code>.
+
+        @return the number of nanoseconds the caller must wait before sending the request
+            (0 if it may be sent now), or a negative number if no permit could be reserved
+            within maxWaitNanos, in which case nothing was reserved
+    */
+    long reserve(long maxWaitNanos);
+
+    /**
+        Returns true and takes a permit if one is available now.
+    */
+    default boolean tryAcquire()
+    {
+        return reserve(0) == 0;
+    }
+
+    /**
+        Returns a permit taken by reserve() or tryAcquire() for a request that was not sent
+        after all, e.g. because another rate limiter rejected it. The default
+        implementation does nothing, i.e. the permit is used up.
+    */
+    default void refund()
+    {
+    }
+}
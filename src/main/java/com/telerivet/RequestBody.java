@@ -0,0 +1,115 @@
+package com.telerivet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+    The body of a TransportRequest, written by the HttpTransport directly to the
+    connection so that large bodies need not be held in memory.
+
+    <p>A body may be written more than once, e.g. when a request is retried.</p>
+*/
+public abstract class RequestBody
+{
+    private volatile long bytesWritten = -1;
+
+    /**
+        Returns a body containing the given bytes.
+    */
+    public static RequestBody create(final byte[] data)
+    {
+        return new RequestBody() {
+            @Override
+            protected void write(OutputStream out) throws IOException
+            {
+                out.write(data);
+            }
+
+            @Override
+            public long getContentLength()
+            {
+                return data.length;
+            }
+
+            @Override
+            public byte[] toByteArray()
+            {
+                return data;
+            }
+        };
+    }
+
+    /**
+        Writes the body to the given stream, without closing it.
+    */
+    public final void writeTo(OutputStream out) throws IOException
+    {
+        CountingOutputStream countingOut = new CountingOutputStream(out);
+        write(countingOut);
+        countingOut.flush();
+        bytesWritten = countingOut.count;
+    }
+
+    protected abstract void write(OutputStream out) throws IOException;
+
+    /**
+        Returns the length of the body in bytes, or -1 if it is not known before the body
+        is written.
+    */
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+    /**
+        Returns the number of bytes written the last time the body was written, or the
+        content length if it has not been written yet.
+    */
+    public long getBytesWritten()
+    {
+        long written = bytesWritten;
+        return written >= 0 ? written : getContentLength();
+    }
+
+    /**
+        Writes the body into a byte array, for transports that cannot stream it.
+    */
+    public byte[] toByteArray() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream
+    {
+        long count = 0;
+
+        CountingOutputStream(OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close()
+        {
+            // the transport owns the underlying stream
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.telerivet;
+
+/**
+    Describes one HTTP request sent to the API (each retry is a separate request).
+    Passed to RequestListeners and recorded in the client's RequestMetrics.
+*/
+public class RequestEvent
+{
+    private final String method;
+    private final String path;
+    private final int statusCode;
+    private final long latencyNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final boolean gzipped;
+    private final int attempt;
+    private final String errorCode;
+
+    public RequestEvent(String method, String path, int statusCode, long latencyNanos, long requestBytes,
+        long responseBytes, boolean gzipped, int attempt, String errorCode)
+    {
+        this.method = method;
+        this.path = path;
+        this.statusCode = statusCode;
+        this.latencyNanos = latencyNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.gzipped = gzipped;
+        this.attempt = attempt;
+        this.errorCode = errorCode;
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    /**
+        The API path, e.g. /projects/PJ123abc456/messages/send
+    */
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+        The API path with object IDs replaced by {id}, e.g. /projects/{id}/messages/send
+    */
+    public String getPathTemplate()
+    {
+        return Util.getPathTemplate(path);
+    }
+
+    /**
+        The HTTP status code, or 0 if no response was received.
+    */
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    /**
+        Time from sending the request until the response body was read and parsed.
+    */
+    public long getLatencyNanos()
+    {
+        return latencyNanos;
+    }
+
+    /**
+        Size of the request body as sent (after compression).
+    */
+    public long getRequestBytes()
+    {
+        return requestBytes;
+    }
+
+    /**
+        Size of the response body (after decompression).
+    */
+    public long getResponseBytes()
+    {
+        return responseBytes;
+    }
+
+    /**
+        Whether the request body was gzip-compressed.
+    */
+    public boolean isGzipped()
+    {
+        return gzipped;
+    }
+
+    /**
+        1 for the first attempt at an API call, 2 for the first retry, etc.
+    */
+    public int getAttempt()
+    {
+        return attempt;
+    }
+
+    /**
+        Null if the request succeeded. Otherwise the API error code (e.g. "not_found"),
+        "http_" followed by the status code if the response had no error code, or
+        "connection_error" if no response was received.
+    */
+    public String getErrorCode()
+    {
+        return errorCode;
+    }
+
+    public boolean isError()
+    {
+        return errorCode != null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return method + " " + path + " " + statusCode + " " + (latencyNanos / 1000) + "us"
+            + (errorCode != null ? " " + errorCode : "");
+    }
+}
@@ -0,0 +1,16 @@
+package com.telerivet;
+
+/**
+    Receives an event after each HTTP request sent by a TelerivetAPI client, e.g. to
+    forward latencies and errors to a monitoring system.
+
+    <p>Called synchronously on the thread that completed the request (which may be a
+    transport thread for asynchronous requests), so implementations should be fast and
+    thread-safe. Exceptions thrown by listeners are ignored.</p>
+
+    @see TelerivetAPI#addRequestListener(RequestListener)
+*/
+public interface RequestListener
+{
+    void onRequest(RequestEvent event);
+}
@@ -0,0 +1,111 @@
+package com.telerivet;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+    Request metrics of a TelerivetAPI client, grouped by HTTP method and path template
+    (e.g. "POST /projects/{id}/messages/send"). Recording is lock-free.
+
+    <pre>
+    for (EndpointMetrics metrics : tr.getMetrics().getSnapshot().values())
+    {
+        System.out.println(metrics);
+    }
+    </pre>
+*/
+public class RequestMetrics implements RequestListener
+{
+    private final Map<String, EndpointRecorder> endpoints = new ConcurrentHashMap<String, EndpointRecorder>();
+
+    @Override
+    public void onRequest(RequestEvent event)
+    {
+        String pathTemplate = event.getPathTemplate();
+        String key = event.getMethod() + " " + pathTemplate;
+
+        EndpointRecorder recorder = endpoints.get(key);
+        if (recorder == null)
+        {
+            recorder = endpoints.computeIfAbsent(key, k -> new EndpointRecorder(event.getMethod(), pathTemplate));
+        }
+        recorder.record(event);
+    }
+
+    /**
+        Returns the metrics recorded so far, keyed by HTTP method and path template.
+    */
+    public Map<String, EndpointMetrics> getSnapshot()
+    {
+        Map<String, EndpointMetrics> snapshot = new TreeMap<String, EndpointMetrics>();
+        for (Map.Entry<String, EndpointRecorder> entry : endpoints.entrySet())
+        {
+            snapshot.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+        Returns the latency histogram for one endpoint, e.g. ("GET", "/projects/{id}/contacts"),
+        or null if no requests have been made to it.
+    */
+    public LatencyHistogram getLatency(String method, String pathTemplate)
+    {
+        EndpointRecorder recorder = endpoints.get(method + " " + pathTemplate);
+        return recorder != null ? recorder.latency : null;
+    }
+
+    public void reset()
+    {
+        endpoints.clear();
+    }
+
+    private static class EndpointRecorder
+    {
+        final String method;
+        final String pathTemplate;
+        final LongAdder requestCount = new LongAdder();
+        final LongAdder errorCount = new LongAdder();
+        final LongAdder gzippedCount = new LongAdder();
+        final LongAdder requestBytes = new LongAdder();
+        final LongAdder responseBytes = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<String, LongAdder> errorCodes = new ConcurrentHashMap<String, LongAdder>();
+
+        EndpointRecorder(String method, String pathTemplate)
+        {
+            this.method = method;
+            this.pathTemplate = pathTemplate;
+        }
+
+        void record(RequestEvent event)
+        {
+            requestCount.increment();
+            requestBytes.add(event.getRequestBytes());
+            responseBytes.add(event.getResponseBytes());
+            if (event.isGzipped())
+            {
+                gzippedCount.increment();
+            }
+            latency.record(event.getLatencyNanos() / 1000);
+            if (event.isError())
+            {
+                errorCount.increment();
+                errorCodes.computeIfAbsent(event.getErrorCode(), k -> new LongAdder()).increment();
+            }
+        }
+
+        EndpointMetrics getSnapshot()
+        {
+            Map<String, Long> codes = new TreeMap<String, Long>();
+            for (Map.Entry<String, LongAdder> entry : errorCodes.entrySet())
+            {
+                codes.put(entry.getKey(), entry.getValue().sum());
+            }
+            return new EndpointMetrics(method, pathTemplate, requestCount.sum(), errorCount.sum(), gzippedCount.sum(),
+                requestBytes.sum(), responseBytes.sum(), latency.copy(), codes);
+        }
+    }
+}
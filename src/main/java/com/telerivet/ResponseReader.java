@@ -0,0 +1,279 @@
+package com.telerivet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+    Decodes a UTF-8 response body for JSONTokener directly from the response stream, so
+    the body never exists as a complete String, or, when the transport streams it (as
+    ApacheHttpTransport and JavaHttpTransport.execute do), as a complete byte[].
+    JavaHttpTransport.executeAsync receives the body into a byte[] first so that it never
+    blocks a thread.
+
+    <p>The byte and char buffers and the decoder are reused by each thread, so parsing a
+    response allocates little besides the resulting JSON objects. Supports mark/reset
+    (which JSONTokener requires), counts the bytes read, and keeps the first characters of
+    the body for error messages. Not thread-safe; close() returns the buffers to the
+    current thread's pool.</p>
+*/
+final class ResponseReader extends Reader
+{
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_CHARS = 65536;
+    private static final int PREFIX_LENGTH = 1000;
+
+    private static final ThreadLocal<Buffers> POOL = ThreadLocal.withInitial(Buffers::new);
+
+    private final InputStream in;
+    private final Buffers buffers;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    private final StringBuilder prefix;
+    private char[] chars;
+
+    private int pos = 0;
+    private int limit = 0;
+    private int markPos = -1;
+    private int markLimit = 0;
+    private boolean endOfInput = false;
+    private boolean decoderFlushed = false;
+    private long byteCount = 0;
+    private IOException readError;
+
+    ResponseReader(InputStream in)
+    {
+        this.in = in;
+
+        Buffers pooled = POOL.get();
+        if (pooled.inUse)
+        {
+            pooled = new Buffers();
+        }
+        pooled.inUse = true;
+        this.buffers = pooled;
+
+        this.bytes = pooled.bytes;
+        this.bytes.clear();
+        this.bytes.flip();
+        this.decoder = pooled.decoder;
+        this.decoder.reset();
+        this.prefix = pooled.prefix;
+        this.prefix.setLength(0);
+        this.chars = pooled.chars;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (pos >= limit && !fill())
+        {
+            return -1;
+        }
+        return chars[pos++];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (pos >= limit && !fill())
+        {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(chars, pos, cbuf, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public void mark(int readAheadLimit)
+    {
+        markPos = pos;
+        markLimit = readAheadLimit;
+    }
+
+    @Override
+    public void reset() throws IOException
+    {
+        if (markPos < 0)
+        {
+            throw new IOException("Stream not marked");
+        }
+        pos = markPos;
+    }
+
+    /**
+        Number of bytes read from the response stream so far.
+    */
+    long getByteCount()
+    {
+        return byteCount;
+    }
+
+    /**
+        The exception thrown by the response stream, if reading failed (e.g. the connection
+        was reset), as opposed to the body not being valid JSON.
+    */
+    IOException getReadError()
+    {
+        return readError;
+    }
+
+    /**
+        Returns the beginning of the body (reading more of it if necessary), for error messages.
+    */
+    String readPrefix()
+    {
+        try
+        {
+            while (prefix.length() < PREFIX_LENGTH && (pos < limit || fill()))
+            {
+                pos = limit;
+            }
+        }
+        catch (IOException ex)
+        {
+            // return what was read
+        }
+        return prefix.length() < PREFIX_LENGTH ? prefix.toString() : prefix.toString() + "...";
+    }
+
+    /**
+        Reads and discards the rest of the response (normally trailing whitespace), so that
+        the connection can be reused.
+    */
+    void drain() throws IOException
+    {
+        while (!endOfInput)
+        {
+            bytes.clear();
+            readInput();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (chars.length <= MAX_POOLED_CHARS)
+        {
+            buffers.chars = chars;
+        }
+        buffers.inUse = false;
+    }
+
+    private boolean fill() throws IOException
+    {
+        if (decoderFlushed)
+        {
+            return false;
+        }
+
+        // keep the marked characters, unless more than the read-ahead limit has been read
+        int keep = 0;
+        if (markPos >= 0)
+        {
+            keep = limit - markPos;
+            if (keep >= markLimit)
+            {
+                markPos = -1;
+                keep = 0;
+            }
+        }
+        if (keep > 0)
+        {
+            char[] dest = chars;
+            if (keep + BUFFER_SIZE / 8 > chars.length)
+            {
+                dest = new char[Math.max(chars.length * 2, keep + BUFFER_SIZE)];
+            }
+            System.arraycopy(chars, markPos, dest, 0, keep);
+            chars = dest;
+            pos -= markPos;
+            markPos = 0;
+        }
+        else
+        {
+            pos = 0;
+        }
+        limit = keep;
+
+        CharBuffer out = CharBuffer.wrap(chars, limit, chars.length - limit);
+        while (true)
+        {
+            decoder.decode(bytes, out, endOfInput);
+            if (out.position() > limit)
+            {
+                break;
+            }
+            if (endOfInput)
+            {
+                decoder.flush(out);
+                decoderFlushed = true;
+                break;
+            }
+            bytes.compact();
+            readInput();
+        }
+
+        int start = limit;
+        limit = out.position();
+
+        if (prefix.length() < PREFIX_LENGTH)
+        {
+            prefix.append(chars, start, Math.min(limit - start, PREFIX_LENGTH - prefix.length()));
+        }
+        return limit > start;
+    }
+
+    // reads into the byte buffer (in write mode), leaving it in read mode
+    private void readInput() throws IOException
+    {
+        int n;
+        try
+        {
+            n = in.read(bytes.array(), bytes.position(), bytes.remaining());
+        }
+        catch (IOException ex)
+        {
+            readError = ex;
+            throw ex;
+        }
+        if (n < 0)
+        {
+            endOfInput = true;
+        }
+        else
+        {
+            bytes.position(bytes.position() + n);
+            byteCount += n;
+        }
+        bytes.flip();
+    }
+
+    private static class Buffers
+    {
+        final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final StringBuilder prefix = new StringBuilder(PREFIX_LENGTH);
+        char[] chars = new char[BUFFER_SIZE];
+        boolean inUse = false;
+    }
+}
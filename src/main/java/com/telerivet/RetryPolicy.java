@@ -0,0 +1,33 @@
+package com.telerivet;
+
+import java.io.IOException;
+
+/**
+    Decides whether a failed API request should be retried, and how long to wait first.
+
+    <p>By default, TelerivetAPI uses RetryPolicy.none() and does not retry failed requests.
+    Use TelerivetAPI.setRetryPolicy to enable retries, e.g. with an
+    ExponentialBackoffRetryPolicy.</p>
+*/
+public interface RetryPolicy
+{
+    /**
+        Returns the number of milliseconds to wait before sending the request again, or a
+        negative number to give up and throw the error.
+
+        @param request the request that failed
+        @param attempt the number of times the request has been sent so far (1 after the first failure)
+        @param response the HTTP response (already read and closed; only the status code and
+            headers are available), or null if no response was received
+        @param error the exception that would be thrown if the request is not retried
+    */
+    long getRetryDelay(TransportRequest request, int attempt, TransportResponse response, IOException error);
+
+    /**
+        Returns a policy that never retries.
+    */
+    static RetryPolicy none()
+    {
+        return (request, attempt, response, error) -> -1;
+    }
+}
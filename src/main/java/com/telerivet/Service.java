@@ -1,6 +1,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.Date;
 import org.json.JSONObject;
 import org.json.JSONArray;
@@ -154,6 +155,15 @@ public class Service extends Entity
     {
         return new ContactServiceState(api, (JSONObject) api.doRequest("GET", getBaseApiPath() + "/states/" + contact.get("id")));
     }
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getContactState</code>.</p>
+        </div>
+    */
+    public CompletableFuture<ContactServiceState> getContactStateAsync(Contact contact)
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/states/" + contact.get("id"), null, res -> new ContactServiceState(api, (JSONObject) res));
+    }
     
     /**
         <div class='markdown'><p>Initializes or updates the current state for a particular contact for the given service. If
@@ -164,6 +174,15 @@ public class Service extends Entity
     {
         return new ContactServiceState(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/states/" + contact.get("id"), options));
     }    
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>setContactState</code>.</p>
+        </div>
+    */
+    public CompletableFuture<ContactServiceState> setContactStateAsync(Contact contact, JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/states/" + contact.get("id"), options, res -> new ContactServiceState(api, (JSONObject) res));
+    }
         
     /**
         <div class='markdown'><p>Resets the current state for a particular contact for the given service.</p>
@@ -173,6 +192,15 @@ public class Service extends Entity
     {
         return new ContactServiceState(api, (JSONObject) api.doRequest("DELETE", getBaseApiPath() + "/states/" + contact.get("id")));
     }            
+
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>resetContactState</code>.</p>
+        </div>
+    */
+    public CompletableFuture<ContactServiceState> resetContactStateAsync(Contact contact)
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath() + "/states/" + contact.get("id"), null, res -> new ContactServiceState(api, (JSONObject) res));
+    }
     
     /**
         <div class='markdown'><p>Manually invoke this service in a particular context.</p>
@@ -194,6 +222,15 @@ public class Service extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/invoke", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>invoke</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> invokeAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/invoke", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Query the current states of contacts for this service.</p>
         </div>
@@ -220,6 +257,15 @@ public class Service extends Entity
         return (JSONObject) api.doRequest("GET", getBaseApiPath() + "/config");
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getConfig</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> getConfigAsync()
+    {
+        return api.doRequestAsync("GET", getBaseApiPath() + "/config", null, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Updates configuration specific to the type of automated service.</p>
         
@@ -235,6 +281,15 @@ public class Service extends Entity
         return (JSONObject) api.doRequest("POST", getBaseApiPath() + "/config", options);
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>setConfig</code>.</p>
+        </div>
+    */
+    public CompletableFuture<JSONObject> setConfigAsync(JSONObject options)
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/config", options, res -> (JSONObject) res);
+    }
+
     /**
         <div class='markdown'><p>Saves any fields or custom variables that have changed for this service.</p>
         </div>
@@ -254,6 +309,15 @@ public class Service extends Entity
         api.doRequest("DELETE", getBaseApiPath());
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>delete</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Void> deleteAsync()
+    {
+        return api.doRequestAsync("DELETE", getBaseApiPath(), null, res -> null);
+    }
+
     public String getId()
     {
         return (String) get("id");
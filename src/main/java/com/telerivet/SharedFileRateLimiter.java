@@ -0,0 +1,97 @@
+package com.telerivet;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+    A token bucket rate limiter whose state is stored in a memory-mapped file, so that
+    every process on the same host that opens the same file shares one budget, e.g. when
+    several JVMs use the same API key.
+
+    <p>Uses the same algorithm as TokenBucketRateLimiter, but the theoretical arrival time
+    is kept in the file as microseconds since the UNIX epoch (since System.nanoTime is not
+    comparable across processes) and updated with an atomic compare-and-set on the mapped
+    memory. No locks or coordinating service are needed. All processes should use the same
+    permitsPerSecond and burstSize, and the file should be on a local filesystem.</p>
+
+    <pre>
+    tr.setRateLimiter(new SharedFileRateLimiter(Paths.get("/var/run/telerivet-rate"), 20, 40));
+    </pre>
+*/
+public class SharedFileRateLimiter implements RateLimiter
+{
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int FILE_SIZE = 64;
+    private static final int TAT_OFFSET = 0;
+
+    private final MappedByteBuffer buffer;
+    private final long intervalMicros;
+    private final long burstMicros;
+
+    /**
+        Opens (or creates) the shared state file.
+
+        @param permitsPerSecond sustained number of requests allowed per second, across all processes
+        @param burstSize number of requests that may be sent at once after a period of inactivity
+    */
+    public SharedFileRateLimiter(Path file, double permitsPerSecond, int burstSize) throws IOException
+    {
+        if (permitsPerSecond <= 0 || burstSize < 1)
+        {
+            throw new IllegalArgumentException("permitsPerSecond and burstSize must be positive");
+        }
+        this.intervalMicros = Math.max(1, (long) (1000000L / permitsPerSecond));
+        this.burstMicros = intervalMicros * burstSize;
+
+        // a newly created file is zero-filled, i.e. a full bucket; the mapping remains
+        // valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+    }
+
+    @Override
+    public long reserve(long maxWaitNanos)
+    {
+        long maxWaitMicros = maxWaitNanos / 1000;
+        while (true)
+        {
+            long now = currentTimeMicros();
+            long tat = (long) LONG_VIEW.getVolatile(buffer, TAT_OFFSET);
+
+            long start = Math.max(tat, now);
+            long newTat = start + intervalMicros;
+            long waitMicros = Math.max(0, newTat - burstMicros - now);
+            if (waitMicros > maxWaitMicros)
+            {
+                return -1;
+            }
+            if (LONG_VIEW.compareAndSet(buffer, TAT_OFFSET, tat, newTat))
+            {
+                return waitMicros * 1000;
+            }
+        }
+    }
+
+    @Override
+    public void refund()
+    {
+        LONG_VIEW.getAndAdd(buffer, TAT_OFFSET, -intervalMicros);
+    }
+
+    private static long currentTimeMicros()
+    {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1000000L + now.getNano() / 1000;
+    }
+}
@@ -2,6 +2,7 @@
 package com.telerivet;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
@@ -128,6 +129,15 @@ public class Task extends Entity
         return new Task(api, (JSONObject) api.doRequest("POST", getBaseApiPath() + "/cancel"));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>cancel</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Task> cancelAsync()
+    {
+        return api.doRequestAsync("POST", getBaseApiPath() + "/cancel", null, res -> new Task(api, (JSONObject) res));
+    }
+
     public String getId()
     {
         return (String) get("id");
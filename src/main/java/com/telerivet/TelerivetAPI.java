@@ -5,41 +5,36 @@
 package com.telerivet;
 
 import com.telerivet.exception.TelerivetAPIException;
+import com.telerivet.exception.TelerivetBulkheadFullException;
+import com.telerivet.exception.TelerivetCircuitOpenException;
+import com.telerivet.exception.TelerivetDeadlineExceededException;
 import com.telerivet.exception.TelerivetInvalidParameterException;
 import com.telerivet.exception.TelerivetNotFoundException;
+import com.telerivet.exception.TelerivetRateLimitException;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.UnknownHostException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.Deflater;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.GzipCompressingEntity;
-import org.apache.http.client.methods.HttpDelete;
-import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpPut;
-import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.conn.scheme.PlainSocketFactory;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.ContentEncodingHttpClient;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.HttpConnectionParams;
-import org.apache.http.params.HttpParams;
-import org.apache.http.params.HttpProtocolParams;
-import org.apache.http.util.EntityUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -47,20 +42,56 @@ import org.json.JSONTokener;
 import org.json.JSONParserConfiguration;
 
 /**
+ * A client for the Telerivet REST API.
+ *
+ * <p>TelerivetAPI is thread-safe: one instance (and its HttpTransport) may be shared by
+ * any number of threads. Entity objects and APICursors are not thread-safe and should
+ * not be modified or iterated by several threads at once.</p>
  *
  * @author youngj
  */
 public class TelerivetAPI {
     public static String CLIENT_VERSION = "1.8.0";
 
+    // defaults for setConnectionTimeout and setSocketTimeout
     public static final int HTTP_CONNECTION_TIMEOUT = 10000; // ms
     public static final int HTTP_SOCKET_TIMEOUT = 10000; // ms
+    public static final int DEFAULT_GZIP_THRESHOLD = 400; // chars
 
     protected String apiKey;
     protected String apiUrl;
-    protected int numRequests = 0;
+    private final LongAdder numRequests = new LongAdder();
+
+    // computed once per client rather than on every request
+    private final String authorizationHeader;
+    private final String userAgent;
+
+    private volatile HttpTransport transport;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.none();
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final List<RequestListener> requestListeners = new CopyOnWriteArrayList<RequestListener>();
+    private final Map<String, LongAdder> retryCounts = new ConcurrentHashMap<String, LongAdder>();
+    private volatile RateLimiter rateLimiter;
+    private final Map<EndpointGroup, RateLimiter> groupRateLimiters = new ConcurrentHashMap<EndpointGroup, RateLimiter>();
+    private volatile long rateLimitMaxWaitNanos = Long.MAX_VALUE;
+    private volatile int connectionTimeout = HTTP_CONNECTION_TIMEOUT;
+    private volatile int socketTimeout = HTTP_SOCKET_TIMEOUT;
+    private volatile int gzipThreshold = DEFAULT_GZIP_THRESHOLD;
+    private volatile int gzipLevel = Deflater.DEFAULT_COMPRESSION;
+    private volatile EntityCache entityCache;
+    private volatile HttpResponseCache responseCache;
+    private volatile HedgingPolicy hedgingPolicy;
+    private final Map<EndpointGroup, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<EndpointGroup, CircuitBreaker>();
+    private final Map<EndpointGroup, Bulkhead> bulkheads = new ConcurrentHashMap<EndpointGroup, Bulkhead>();
+    private final List<IsolationListener> isolationListeners = new CopyOnWriteArrayList<IsolationListener>();
+    private volatile boolean coalesceRequests = false;
+    private final Map<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<String, InFlightRequest>();
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    private static final JSONParserConfiguration STRICT_PARSER_CONFIGURATION = new JSONParserConfiguration().withStrictMode(true);
 
-    private HttpClient httpClient;
+    private static final Map<Class<?>, EntityFactory<?>> DEFAULT_ENTITY_FACTORIES = EntityFactory.getDefaultFactories();
+    private final Map<Class<?>, EntityFactory<?>> entityFactories = new ConcurrentHashMap<Class<?>, EntityFactory<?>>(DEFAULT_ENTITY_FACTORIES);
 
     /**
         <div class='markdown'><p>Initializes a client handle to the Telerivet REST API.</p>
@@ -77,14 +108,22 @@ public class TelerivetAPI {
     }
 
     public TelerivetAPI(String apiKey, String apiUrl)
+    {
+        this(apiKey, apiUrl, null);
+    }
+
+    public TelerivetAPI(String apiKey, String apiUrl, HttpTransport transport)
     {
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
+        this.transport = transport;
+        this.authorizationHeader = "Basic " + Base64.encodeBase64String((apiKey + ":").getBytes(StandardCharsets.UTF_8));
+        this.userAgent = "Telerivet Java Client/" + CLIENT_VERSION + " Java/" + System.getProperty("java.version");
     }
 
     public int getNumRequests()
     {
-        return this.numRequests;
+        return (int) this.numRequests.sum();
     }
 
     /**
@@ -96,6 +135,15 @@ public class TelerivetAPI {
         return new Project(this, (JSONObject) this.doRequest("GET", getBaseApiPath() + "/projects/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getProjectById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Project> getProjectByIdAsync(String id)
+    {
+        return this.doRequestAsync("GET", getBaseApiPath() + "/projects/" + id, null, res -> new Project(this, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the Telerivet project with the given ID without making an API request.</p>
         </div>
@@ -128,6 +176,15 @@ public class TelerivetAPI {
         return new Organization(this, (JSONObject) this.doRequest("GET", getBaseApiPath() + "/organizations/" + id));
     }
 
+    /**
+        <div class='markdown'><p>Asynchronous version of <code>getOrganizationById</code>.</p>
+        </div>
+    */
+    public CompletableFuture<Organization> getOrganizationByIdAsync(String id)
+    {
+        return this.doRequestAsync("GET", getBaseApiPath() + "/organizations/" + id, null, res -> new Organization(this, (JSONObject) res));
+    }
+
     /**
         <div class='markdown'><p>Initializes the Telerivet organization with the given ID without making an API request.</p>
         </div>
@@ -157,64 +214,178 @@ public class TelerivetAPI {
     }
     protected <T> APICursor<T> newCursor(Class<T> itemClass, String path, JSONObject options)
     {
-        return new APICursor<T>(this, itemClass, path, options);
+        return new APICursor<T>(this, getEntityFactory(itemClass), path, options);
+    }
+
+    /**
+        Returns the factory used to create objects of the given class from API responses.
+        If no factory has been registered for the class, one that calls its
+        (TelerivetAPI, JSONObject, boolean) constructor via reflection is created and cached.
+    */
+    @SuppressWarnings("unchecked")
+    public <T> EntityFactory<T> getEntityFactory(Class<T> itemClass)
+    {
+        EntityFactory<?> factory = entityFactories.get(itemClass);
+        if (factory == null)
+        {
+            factory = entityFactories.computeIfAbsent(itemClass, EntityFactory::forConstructor);
+        }
+        return (EntityFactory<T>) factory;
+    }
+
+    /**
+        Registers the factory used to create objects of the given class, e.g. for APICursor
+        items of a custom Entity subclass.
+    */
+    public <T> void registerEntityFactory(Class<T> itemClass, EntityFactory<T> factory)
+    {
+        entityFactories.put(itemClass, factory);
     }
 
-    private void encodeParamsRec(String paramName, Object value, List<BasicNameValuePair> paramArr) throws JSONException
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+        Appends parameters to a query string in the format expected by the API, e.g.
+        vars[birthdate][min]=1980-01-01, with names and values form-encoded. The name
+        builder holds the encoded name of the current parameter and is restored after
+        each nested object or array, so no intermediate strings are created.
+    */
+    private static void appendQueryParam(StringBuilder query, StringBuilder name, Object value, int queryStart) throws JSONException
     {
         if (value == null || value.equals(JSONObject.NULL))
         {
             return;
         }
+        int nameLength = name.length();
         if (value instanceof JSONArray)
         {
             JSONArray arr = (JSONArray)value;
             int len = arr.length();
             for (int i = 0; i < len; i++)
             {
-                encodeParamsRec(paramName + "[" +i + "]", arr.get(i), paramArr);
+                name.append("%5B").append(i).append("%5D");
+                appendQueryParam(query, name, arr.get(i), queryStart);
+                name.setLength(nameLength);
             }
         }
         else if (value instanceof JSONObject)
         {
             JSONObject obj = (JSONObject)value;
-            Iterator keysIter = obj.keys();
-            while(keysIter.hasNext())
+            Iterator<String> keysIter = obj.keys();
+            while (keysIter.hasNext())
             {
-                String key = (String)keysIter.next();
-                encodeParamsRec(paramName + "[" + key + "]", obj.get(key), paramArr);
+                String key = keysIter.next();
+                name.append("%5B");
+                appendFormEncoded(name, key);
+                name.append("%5D");
+                appendQueryParam(query, name, obj.get(key), queryStart);
+                name.setLength(nameLength);
             }
         }
-        else if (value instanceof Number)
+        else
         {
-            Number num = (Number)value;
-            int intValue = num.intValue();
-            if ((double)intValue == num.doubleValue())
+            if (query.length() > queryStart)
+            {
+                query.append('&');
+            }
+            query.append(name).append('=');
+
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            {
+                query.append(((Number)value).longValue());
+            }
+            else if (value instanceof Number)
             {
-                paramArr.add(new BasicNameValuePair(paramName, "" + intValue));
+                appendFormEncoded(query, formatNumber((Number)value));
             }
             else
             {
-                paramArr.add(new BasicNameValuePair(paramName, value.toString()));
+                appendFormEncoded(query, value.toString());
             }
         }
-        else
+    }
+
+    /**
+        Formats a number without a fractional part if it is an integer, e.g. 5.0 as "5"
+        and 12345678901L as "12345678901".
+    */
+    static String formatNumber(Number num)
+    {
+        if (num instanceof Double || num instanceof Float)
+        {
+            double d = num.doubleValue();
+            if (d == Math.rint(d) && Math.abs(d) < 0x1p63)
+            {
+                return Long.toString((long)d);
+            }
+        }
+        else if (num instanceof BigDecimal)
         {
-            paramArr.add(new BasicNameValuePair(paramName, value.toString()));
+            BigDecimal decimal = (BigDecimal)num;
+            if (decimal.stripTrailingZeros().scale() <= 0)
+            {
+                return decimal.toBigInteger().toString();
+            }
         }
+        return num.toString();
     }
 
-    private List<BasicNameValuePair> encodeParams(JSONObject jsonOptions) throws JSONException
+    /**
+        Appends a string encoded as application/x-www-form-urlencoded UTF-8 (equivalent to
+        URLEncoder.encode).
+    */
+    static void appendFormEncoded(StringBuilder sb, CharSequence str)
     {
-        List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
-
-        Iterator keysIter = jsonOptions.keys();
-        while(keysIter.hasNext())
+        int len = str.length();
+        for (int i = 0; i < len; i++)
         {
-            String key = (String)keysIter.next();
-            encodeParamsRec(key, jsonOptions.get(key), params);
+            char c = str.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.' || c == '*')
+            {
+                sb.append(c);
+            }
+            else if (c == ' ')
+            {
+                sb.append('+');
+            }
+            else if (c < 0x80)
+            {
+                appendPercentEncoded(sb, c);
+            }
+            else if (c < 0x800)
+            {
+                appendPercentEncoded(sb, 0xC0 | (c >> 6));
+                appendPercentEncoded(sb, 0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c))
+            {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1)))
+                {
+                    int cp = Character.toCodePoint(c, str.charAt(++i));
+                    appendPercentEncoded(sb, 0xF0 | (cp >> 18));
+                    appendPercentEncoded(sb, 0x80 | ((cp >> 12) & 0x3F));
+                    appendPercentEncoded(sb, 0x80 | ((cp >> 6) & 0x3F));
+                    appendPercentEncoded(sb, 0x80 | (cp & 0x3F));
+                }
+                else
+                {
+                    // unpaired surrogate, replaced like String.getBytes does
+                    appendPercentEncoded(sb, '?');
+                }
+            }
+            else
+            {
+                appendPercentEncoded(sb, 0xE0 | (c >> 12));
+                appendPercentEncoded(sb, 0x80 | ((c >> 6) & 0x3F));
+                appendPercentEncoded(sb, 0x80 | (c & 0x3F));
+            }
         }
-        return params;
+    }
+
+    private static void appendPercentEncoded(StringBuilder sb, int b)
+    {
+        sb.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
     }
 
     public Object doRequest(String method, String path) throws IOException
@@ -224,164 +395,1666 @@ public class TelerivetAPI {
 
     public Object doRequest(String method, String path, JSONObject params) throws IOException
     {
-        HttpUriRequest request;
-        String url = apiUrl + path;
+        TransportRequest request = buildRequest(method, path, params);
 
-        if ("POST".equals(method) || "PUT".equals(method))
+        if ("GET".equals(method))
         {
-            HttpEntityEnclosingRequestBase entityRequest;
-            if ("PUT".equals(method))
+            HttpResponseCache cache = responseCache;
+            Object cachedResult = cache != null ? cache.getFresh(request.getUrl()) : null;
+            if (cachedResult != null)
             {
-                entityRequest = new HttpPut(url);
+                return cachedResult;
             }
-            else
+            if (coalesceRequests)
             {
-                entityRequest = new HttpPost(url);
+                return executeCoalesced(request, path);
             }
+        }
+        return execute(request, path);
+    }
 
-            entityRequest.setHeader("Content-Type", "application/json");
-            if (params != null)
+    /**
+        Sends a GET request, or if an identical request is already in progress, waits for
+        it and returns a copy of its response.
+    */
+    private Object executeCoalesced(TransportRequest request, String path) throws IOException
+    {
+        String key = request.getUrl();
+        Deadline deadline = request.getDeadline();
+
+        // a request with a deadline may wait for another request, but others do not wait
+        // for it, since it may fail when its own deadline expires
+        InFlightRequest newRequest = deadline == null ? new InFlightRequest() : null;
+        InFlightRequest inFlight = joinInFlightRequest(key, newRequest);
+        if (inFlight == null)
+        {
+            return execute(request, path);
+        }
+        if (inFlight != newRequest)
+        {
+            try
             {
-                String paramsJson = params.toString();
-                HttpEntity entity = new StringEntity(paramsJson, "UTF-8");
-                if (paramsJson.length() >= 400)
+                return Util.deepCopy(deadline != null
+                    ? inFlight.response.get(deadline.getRemainingNanos(), TimeUnit.NANOSECONDS)
+                    : inFlight.response.get());
+            }
+            catch (TimeoutException ex)
+            {
+                throw new TelerivetDeadlineExceededException("Deadline exceeded while waiting for response to GET " + path);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for response");
+            }
+            catch (ExecutionException ex)
+            {
+                Throwable cause = unwrapCompletionException(ex);
+                if (cause instanceof IOException)
+                {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException)
                 {
-                    entity = new GzipCompressingEntity(entity);
+                    throw (RuntimeException) cause;
                 }
-                entityRequest.setEntity(entity);
+                throw new IOException(cause);
             }
-            request = entityRequest;
+        }
+
+        Object result;
+        try
+        {
+            result = execute(request, path);
+        }
+        catch (Throwable ex)
+        {
+            finishInFlightRequest(key, newRequest, null, ex);
+            throw ex;
+        }
+        finishInFlightRequest(key, newRequest, result, null);
+        return result;
+    }
+
+    /**
+        Returns the request in progress for the given key, counting the caller as one of its
+        followers, or registers newRequest (and returns it) if there is none. newRequest may
+        be null to only join a request in progress.
+    */
+    private InFlightRequest joinInFlightRequest(String key, InFlightRequest newRequest)
+    {
+        return inFlightRequests.compute(key, (k, inFlight) -> {
+            if (inFlight == null)
+            {
+                return newRequest;
+            }
+            inFlight.followers++;
+            coalescedRequests.increment();
+            return inFlight;
+        });
+    }
+
+    private void finishInFlightRequest(String key, InFlightRequest inFlight, Object result, Throwable error)
+    {
+        // once removed, no more followers can join, so the response is only copied if needed
+        inFlightRequests.remove(key, inFlight);
+        if (inFlight.followers == 0)
+        {
+            return;
+        }
+        if (error != null)
+        {
+            inFlight.response.completeExceptionally(error);
         }
         else
         {
-            if (params != null && params.length() > 0)
+            // followers copy this snapshot, since the first caller may modify its own result
+            inFlight.response.complete(Util.deepCopy(result));
+        }
+    }
+
+    private Object execute(TransportRequest request, String path) throws IOException
+    {
+        String method = request.getMethod();
+        HttpTransport transport = getTransport();
+        HedgingPolicy hedging = "GET".equals(method) ? hedgingPolicy : null;
+        Deadline deadline = request.getDeadline();
+
+        for (int attempt = 1; ; attempt++)
+        {
+            TransportResponse response = null;
+            IOException error = null;
+
+            // a hedged request from the previous attempt may still be using its headers
+            request = request.copy();
+
+            applyTimeouts(request, path);
+
+            IsolationPermit isolation = acquireIsolation(method, path, true);
+            try
+            {
+                long waitNanos = reserveRateLimit(method, path, deadline);
+                if (waitNanos > 0)
+                {
+                    sleep(waitNanos, "Interrupted while waiting for rate limit");
+                    applyTimeouts(request, path);
+                }
+            }
+            catch (IOException ex)
             {
-                url = url + "?" + URLEncodedUtils.format(encodeParams(params), "UTF-8");
+                cancelIsolation(isolation);
+                throw ex;
             }
 
-            if ("GET".equals(method))
+            this.numRequests.increment();
+
+            ApiRequestFlightEvent flightEvent = new ApiRequestFlightEvent();
+            flightEvent.begin();
+
+            HttpResponseCache.Lookup cacheLookup = prepareCachedRequest(request);
+
+            long startTime = System.nanoTime();
+            try
             {
-                request = new HttpGet(url);
+                response = hedging != null ? awaitResponse(executeHedged(transport, request, path, hedging))
+                    : transport.execute(request);
             }
-            else if ("DELETE".equals(method))
+            catch (IOException ex)
             {
-                request = new HttpDelete(url);
+                error = connectionError(ex);
             }
-            else
+            finally
             {
-                throw new InvalidParameterException("Invalid HTTP method");
+                releaseIsolation(isolation, response);
             }
-        }
+            long responseTime = System.nanoTime();
+
+            long responseBytes = 0;
+            if (response != null)
+            {
+                ResponseReader reader = new ResponseReader(response.getBody());
+                try
+                {
+                    Object result = readResponse(request, response, reader, cacheLookup);
+                    long endTime = System.nanoTime();
+                    flightEvent.parseTime = endTime - responseTime;
+                    recordRequest(request, path, attempt, endTime - startTime, response, reader.getByteCount(), null, flightEvent);
+                    return result;
+                }
+                catch (IOException ex)
+                {
+                    error = ex;
+                    responseBytes = reader.getByteCount();
+                    if (reader.getReadError() != null)
+                    {
+                        response = null;
+                    }
+                }
+            }
+
+            recordRequest(request, path, attempt, System.nanoTime() - startTime, response, responseBytes, error, flightEvent);
 
-        return doRequest(request);
+            if (response == null && deadline != null && deadline.isExpired())
+            {
+                throw deadlineExceeded(request, path, error);
+            }
+
+            long delay = retryPolicy.getRetryDelay(request, attempt, response, error);
+            if (delay < 0 || !hasTimeToRetry(deadline, delay))
+            {
+                throw error;
+            }
+
+            recordRetry(method, path);
+
+            sleep(TimeUnit.MILLISECONDS.toNanos(delay), "Interrupted while waiting to retry request: " + error.getMessage());
+        }
     }
 
-    private Object doRequest(HttpUriRequest request) throws UnsupportedEncodingException, JSONException, IOException
+    public CompletableFuture<Object> doRequestAsync(String method, String path)
     {
-        String authParams = apiKey + ":";
+        return doRequestAsync(method, path, null);
+    }
 
-        Base64 base64 = new Base64();
-        String authString = base64.encodeToString(authParams.getBytes("UTF-8"));
+    /**
+        Sends an API request without blocking the calling thread. The returned future
+        completes with the parsed JSON response, or completes exceptionally with the same
+        IOException (e.g. TelerivetAPIException) that doRequest would have thrown.
 
-        request.addHeader("Authorization", "Basic " + authString);
-        request.setHeader("User-Agent", "Telerivet Java Client/" + CLIENT_VERSION + " Java/" + System.getProperty("java.version"));
+        <p>Large request bodies are serialized while the request is sent, so params must
+        not be modified until the future completes.</p>
+    */
+    public CompletableFuture<Object> doRequestAsync(String method, String path, JSONObject params)
+    {
+        return doRequestAsync(method, path, params, res -> res);
+    }
 
-        HttpClient client = getHttpClient();
+    /**
+        Sends an API request without blocking the calling thread, converting the parsed
+        JSON response with the given function (e.g. to construct an entity object).
+        Exceptions thrown by doRequest or by the converter complete the returned future
+        exceptionally without being wrapped.
+    */
+    public <T> CompletableFuture<T> doRequestAsync(String method, String path, JSONObject params, Function<Object, T> converter)
+    {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
 
-        HttpResponse response;
+        TransportRequest request;
+        try
+        {
+            request = buildRequest(method, path, params);
+        }
+        catch (IOException ex)
+        {
+            result.completeExceptionally(ex);
+            return result;
+        }
 
-        this.numRequests++;
+        HttpResponseCache cache = responseCache;
+        Object cachedResult = cache != null && "GET".equals(method) ? cache.getFresh(request.getUrl()) : null;
+        if (cachedResult != null)
+        {
+            try
+            {
+                result.complete(converter.apply(cachedResult));
+            }
+            catch (Throwable ex)
+            {
+                result.completeExceptionally(ex);
+            }
+        }
+        else if (coalesceRequests && "GET".equals(method))
+        {
+            sendCoalescedAsync(request, path, converter, result);
+        }
+        else
+        {
+            sendAsync(request, path, 1, converter, result);
+        }
+        return result;
+    }
 
-        try
+    private <T> void sendCoalescedAsync(final TransportRequest request, final String path,
+        final Function<Object, T> converter, final CompletableFuture<T> result)
+    {
+        final String key = request.getUrl();
+        final Deadline deadline = request.getDeadline();
+        final InFlightRequest newRequest = deadline == null ? new InFlightRequest() : null;
+        InFlightRequest inFlight = joinInFlightRequest(key, newRequest);
+        if (inFlight == null)
         {
-            response = client.execute(request);
+            sendAsync(request, path, 1, converter, result);
+            return;
         }
-        catch (UnknownHostException ex)
+
+        final CompletableFuture<Object> response;
+        if (inFlight != newRequest)
         {
-            throw new IOException("Could not connect to Telerivet API: " + ex.getMessage());
+            response = inFlight.response;
+            if (deadline != null)
+            {
+                ScheduledFuture<?> expiry = deadline.whenExpired(() -> result.completeExceptionally(
+                    new TelerivetDeadlineExceededException("Deadline exceeded while waiting for response to GET " + path)));
+                result.whenComplete((res, error) -> expiry.cancel(false));
+            }
         }
-        catch (IOException ex)
+        else
         {
-            throw new IOException("Could not connect to Telerivet API: " + ex.getMessage());
+            response = new CompletableFuture<Object>();
+            sendAsync(request, path, 1, res -> res, response);
         }
 
-        int statusCode = response.getStatusLine().getStatusCode();
+        response.whenComplete((res, error) -> {
+            if (inFlight == newRequest)
+            {
+                finishInFlightRequest(key, newRequest, res, error);
+            }
+            if (error != null)
+            {
+                result.completeExceptionally(unwrapCompletionException(error));
+                return;
+            }
+            try
+            {
+                result.complete(converter.apply(inFlight == newRequest ? res : Util.deepCopy(res)));
+            }
+            catch (Throwable ex)
+            {
+                result.completeExceptionally(ex);
+            }
+        });
+    }
 
-        String responseStr = EntityUtils.toString(response.getEntity());
+    private <T> void sendAsync(TransportRequest previousRequest, final String path, final int attempt,
+        final Function<Object, T> converter, final CompletableFuture<T> result)
+    {
+        // a hedged request from the previous attempt may still be using its headers
+        final TransportRequest request = previousRequest.copy();
 
-        Object responseData;
+        final IsolationPermit isolation;
         try
         {
-            responseData = new JSONTokener(responseStr, (new JSONParserConfiguration()).withStrictMode(true)).nextValue();
+            applyTimeouts(request, path);
+            isolation = acquireIsolation(request.getMethod(), path, false);
         }
-        catch (JSONException ex)
+        catch (IOException ex)
         {
-            throw new TelerivetAPIException("Unexpected response from Telerivet API (HTTP " + statusCode + "): " + responseStr, null);
+            result.completeExceptionally(ex);
+            return;
         }
 
-        if (responseData instanceof JSONObject)
+        long waitNanos;
+        try
         {
-            JSONObject responseObj = (JSONObject)responseData;
+            waitNanos = reserveRateLimit(request.getMethod(), path, request.getDeadline());
+        }
+        catch (IOException ex)
+        {
+            cancelIsolation(isolation);
+            result.completeExceptionally(ex);
+            return;
+        }
 
-            JSONObject error = responseObj.optJSONObject("error");
-            if (error != null)
-            {
-                String code = error.optString("code");
-                String message = error.optString("message");
-                if ("invalid_param".equals(code))
-                {
-                    throw new TelerivetInvalidParameterException(message, code, error.optString("param"));
-                }
-                else if ("not_found".equals(code))
+        if (waitNanos > 0)
+        {
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                try
                 {
-                    throw new TelerivetNotFoundException(message, code);
+                    applyTimeouts(request, path);
                 }
-                else
+                catch (IOException ex)
                 {
-                    throw new TelerivetAPIException(message, code);
+                    cancelIsolation(isolation);
+                    result.completeExceptionally(ex);
+                    return;
                 }
-            }
-            else
-            {
-                return responseData;
-            }
+                executeAsync(request, path, attempt, isolation, converter, result);
+            });
         }
         else
         {
-            return responseData;
+            executeAsync(request, path, attempt, isolation, converter, result);
         }
     }
 
-    private HttpClient getHttpClient()
+    private <T> void executeAsync(final TransportRequest request, final String path, final int attempt,
+        final IsolationPermit isolation, final Function<Object, T> converter, final CompletableFuture<T> result)
     {
-        if (httpClient == null)
-        {
-            // via http://thinkandroid.wordpress.com/2009/12/31/creating-an-http-client-example/
-            // also http://hc.apache.org/httpclient-3.x/threading.html
+        this.numRequests.increment();
 
-            HttpParams httpParams = getDefaultHttpParams();
+        final ApiRequestFlightEvent flightEvent = new ApiRequestFlightEvent();
+        flightEvent.begin();
 
-            SchemeRegistry registry = new SchemeRegistry();
-            registry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+        final HttpResponseCache.Lookup cacheLookup = prepareCachedRequest(request);
 
-            final SSLSocketFactory sslSocketFactory = SSLSocketFactory.getSocketFactory();
-            sslSocketFactory.setHostnameVerifier(SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+        final long startTime = System.nanoTime();
 
-            registry.register(new Scheme("https", sslSocketFactory, 443));
+        HttpTransport transport = getTransport();
+        HedgingPolicy hedging = "GET".equals(request.getMethod()) ? hedgingPolicy : null;
+        CompletableFuture<TransportResponse> responseFuture = hedging != null
+            ? executeHedged(transport, request, path, hedging) : transport.executeAsync(request);
 
-            ThreadSafeClientConnManager manager = new ThreadSafeClientConnManager(httpParams, registry);
+        responseFuture.whenComplete((response, error) -> {
+            releaseIsolation(isolation, response);
 
-            httpClient = new ContentEncodingHttpClient(manager, httpParams);
-        }
-        return httpClient;
+            IOException failure;
+            TransportResponse receivedResponse = null;
+            long responseBytes = 0;
+            if (error != null)
+            {
+                Throwable cause = unwrapCompletionException(error);
+                if (!(cause instanceof IOException))
+                {
+                    result.completeExceptionally(cause);
+                    return;
+                }
+                failure = connectionError((IOException) cause);
+            }
+            else
+            {
+                long responseTime = System.nanoTime();
+                ResponseReader reader = new ResponseReader(response.getBody());
+                try
+                {
+                    Object data = readResponse(request, response, reader, cacheLookup);
+                    long endTime = System.nanoTime();
+                    flightEvent.parseTime = endTime - responseTime;
+                    recordRequest(request, path, attempt, endTime - startTime, response, reader.getByteCount(), null, flightEvent);
+                    result.complete(converter.apply(data));
+                    return;
+                }
+                catch (IOException ex)
+                {
+                    failure = ex;
+                    responseBytes = reader.getByteCount();
+                    if (reader.getReadError() == null)
+                    {
+                        receivedResponse = response;
+                    }
+                }
+                catch (Throwable ex)
+                {
+                    result.completeExceptionally(ex);
+                    return;
+                }
+            }
+
+            recordRequest(request, path, attempt, System.nanoTime() - startTime, receivedResponse, responseBytes, failure, flightEvent);
+
+            Deadline deadline = request.getDeadline();
+            if (receivedResponse == null && deadline != null && deadline.isExpired())
+            {
+                result.completeExceptionally(deadlineExceeded(request, path, failure));
+                return;
+            }
+
+            long delay = retryPolicy.getRetryDelay(request, attempt, receivedResponse, failure);
+            if (delay < 0 || !hasTimeToRetry(deadline, delay))
+            {
+                result.completeExceptionally(failure);
+                return;
+            }
+
+            recordRetry(request.getMethod(), path);
+
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(
+                () -> sendAsync(request, path, attempt + 1, converter, result));
+        });
     }
 
-    private HttpParams getDefaultHttpParams()
+    /**
+        Sends a GET request, and if no response has arrived after the hedging delay (and the
+        hedging budget allows it), sends the same request again. Completes with the first
+        response to arrive and closes the other one, or fails if both requests fail.
+    */
+    private CompletableFuture<TransportResponse> executeHedged(final HttpTransport transport,
+        final TransportRequest request, final String path, final HedgingPolicy hedging)
     {
-        HttpParams httpParams = new BasicHttpParams();
-        HttpConnectionParams.setConnectionTimeout(httpParams, HTTP_CONNECTION_TIMEOUT);
-        HttpConnectionParams.setSoTimeout(httpParams, HTTP_SOCKET_TIMEOUT);
-        HttpProtocolParams.setContentCharset(httpParams, "UTF-8");
-        return httpParams;
+        final HedgedExchange exchange = new HedgedExchange();
+        long delayNanos = hedging.getDelayNanos(metrics, path);
+
+        transport.executeAsync(request).whenComplete((response, error) -> exchange.onResponse(response, error, null));
+
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (!exchange.startHedge())
+            {
+                return;
+            }
+            if (exchange.response.isDone() || !hedging.tryAcquireHedge() || !tryAcquireRateLimit(request.getMethod(), path))
+            {
+                exchange.skipHedge();
+                return;
+            }
+            this.numRequests.increment();
+            transport.executeAsync(request.copy()).whenComplete((response, error) -> exchange.onResponse(response, error, hedging));
+        });
+
+        return exchange.response;
+    }
+
+    private static TransportResponse awaitResponse(CompletableFuture<TransportResponse> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            future.thenAccept(TelerivetAPI::closeQuietly);
+            throw new InterruptedIOException("Interrupted while waiting for response");
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = unwrapCompletionException(ex);
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void closeQuietly(TransportResponse response)
+    {
+        try
+        {
+            response.close();
+        }
+        catch (IOException ex)
+        {
+            // the response is discarded anyway
+        }
+    }
+
+    /**
+        Takes a permit from the rate limiters only if one is available immediately, so that
+        hedged requests do not count against the limit while waiting.
+    */
+    private boolean tryAcquireRateLimit(String method, String path)
+    {
+        RateLimiter groupRateLimiter = null;
+        if (!groupRateLimiters.isEmpty())
+        {
+            groupRateLimiter = groupRateLimiters.get(EndpointGroup.forRequest(method, path));
+            if (groupRateLimiter != null && !groupRateLimiter.tryAcquire())
+            {
+                return false;
+            }
+        }
+        RateLimiter globalRateLimiter = rateLimiter;
+        if (globalRateLimiter != null && !globalRateLimiter.tryAcquire())
+        {
+            if (groupRateLimiter != null)
+            {
+                groupRateLimiter.refund();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+        Checks the circuit breaker and takes a permit from the bulkhead of the request's
+        endpoint group, if either is configured. Returns the permit to pass to
+        releaseIsolation when the request completes, or null.
+    */
+    private IsolationPermit acquireIsolation(String method, String path, boolean wait) throws IOException
+    {
+        if (circuitBreakers.isEmpty() && bulkheads.isEmpty())
+        {
+            return null;
+        }
+
+        EndpointGroup group = EndpointGroup.forRequest(method, path);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(group);
+        Bulkhead bulkhead = bulkheads.get(group);
+        if (circuitBreaker == null && bulkhead == null)
+        {
+            return null;
+        }
+
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire())
+        {
+            throw new TelerivetCircuitOpenException("Circuit breaker for " + group + " requests is open");
+        }
+
+        if (bulkhead != null)
+        {
+            boolean acquired;
+            try
+            {
+                acquired = bulkhead.tryAcquire(wait);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+
+            if (!acquired)
+            {
+                if (circuitBreaker != null)
+                {
+                    circuitBreaker.onCancel();
+                }
+                for (IsolationListener listener : isolationListeners)
+                {
+                    try
+                    {
+                        listener.onBulkheadRejected(group, bulkhead);
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        // listeners must not affect API requests
+                    }
+                }
+                if (Thread.currentThread().isInterrupted())
+                {
+                    throw new InterruptedIOException("Interrupted while waiting for bulkhead");
+                }
+                throw new TelerivetBulkheadFullException("Too many concurrent " + group + " requests (maximum "
+                    + bulkhead.getMaxConcurrentCalls() + ")");
+            }
+        }
+        return new IsolationPermit(circuitBreaker, bulkhead);
+    }
+
+    /**
+        Releases the bulkhead permit and records the outcome in the circuit breaker for a
+        request whose response (or null after a connection error) was received.
+    */
+    private static void releaseIsolation(IsolationPermit isolation, TransportResponse response)
+    {
+        if (isolation == null)
+        {
+            return;
+        }
+        if (isolation.bulkhead != null)
+        {
+            isolation.bulkhead.release();
+        }
+        if (isolation.circuitBreaker != null)
+        {
+            if (CircuitBreaker.isFailure(response))
+            {
+                isolation.circuitBreaker.onFailure();
+            }
+            else
+            {
+                isolation.circuitBreaker.onSuccess();
+            }
+        }
+    }
+
+    /**
+        Returns the permits of a request that was not sent.
+    */
+    private static void cancelIsolation(IsolationPermit isolation)
+    {
+        if (isolation == null)
+        {
+            return;
+        }
+        if (isolation.bulkhead != null)
+        {
+            isolation.bulkhead.release();
+        }
+        if (isolation.circuitBreaker != null)
+        {
+            isolation.circuitBreaker.onCancel();
+        }
+    }
+
+    private void notifyCircuitStateChange(EndpointGroup group, CircuitBreaker.State from, CircuitBreaker.State to)
+    {
+        for (IsolationListener listener : isolationListeners)
+        {
+            try
+            {
+                listener.onCircuitStateChange(group, from, to);
+            }
+            catch (RuntimeException ex)
+            {
+                // listeners must not affect API requests
+            }
+        }
+    }
+
+    /**
+        Reserves a permit from the global and endpoint group rate limiters (if any),
+        returning the number of nanoseconds to wait before sending the request. Fails
+        without waiting if the deadline (if any) would expire first, after refunding the
+        group permit if only the global rate limiter rejected the request.
+    */
+    private long reserveRateLimit(String method, String path, Deadline deadline) throws TelerivetAPIException
+    {
+        long maxWaitNanos = rateLimitMaxWaitNanos;
+        boolean limitedByDeadline = false;
+        if (deadline != null && deadline.getRemainingNanos() < maxWaitNanos)
+        {
+            maxWaitNanos = deadline.getRemainingNanos();
+            limitedByDeadline = true;
+        }
+
+        long waitNanos = 0;
+        RateLimiter groupRateLimiter = null;
+        if (!groupRateLimiters.isEmpty())
+        {
+            EndpointGroup group = EndpointGroup.forRequest(method, path);
+            groupRateLimiter = groupRateLimiters.get(group);
+            if (groupRateLimiter != null)
+            {
+                waitNanos = groupRateLimiter.reserve(maxWaitNanos);
+                if (waitNanos < 0)
+                {
+                    if (limitedByDeadline)
+                    {
+                        throw new TelerivetDeadlineExceededException("Deadline would expire while waiting for " + group + " rate limit");
+                    }
+                    throw new TelerivetRateLimitException("Client rate limit exceeded for " + group + " requests");
+                }
+            }
+        }
+
+        RateLimiter rateLimiter = this.rateLimiter;
+        if (rateLimiter != null)
+        {
+            long globalWaitNanos = rateLimiter.reserve(maxWaitNanos);
+            if (globalWaitNanos < 0)
+            {
+                if (groupRateLimiter != null)
+                {
+                    groupRateLimiter.refund();
+                }
+                if (limitedByDeadline)
+                {
+                    throw new TelerivetDeadlineExceededException("Deadline would expire while waiting for rate limit");
+                }
+                throw new TelerivetRateLimitException("Client rate limit exceeded");
+            }
+            waitNanos = Math.max(waitNanos, globalWaitNanos);
+        }
+        return waitNanos;
+    }
+
+    private static void sleep(long nanos, String interruptedMessage) throws InterruptedIOException
+    {
+        try
+        {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(interruptedMessage);
+        }
+    }
+
+    static Throwable unwrapCompletionException(Throwable ex)
+    {
+        while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null)
+        {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+
+    private static IOException connectionError(IOException ex)
+    {
+        return new IOException("Could not connect to Telerivet API: " + ex.getMessage(), ex);
+    }
+
+    /**
+        Sets the client's timeouts on the request for the next attempt, limited by the time
+        left before the request's deadline (if any).
+    */
+    private void applyTimeouts(TransportRequest request, String path) throws TelerivetDeadlineExceededException
+    {
+        int connectionTimeout = this.connectionTimeout;
+        int socketTimeout = this.socketTimeout;
+
+        Deadline deadline = request.getDeadline();
+        if (deadline != null)
+        {
+            long remaining = deadline.getRemainingMillis();
+            if (remaining <= 0)
+            {
+                throw new TelerivetDeadlineExceededException("Deadline exceeded before sending " + request.getMethod() + " " + path);
+            }
+            connectionTimeout = (int) Math.min(connectionTimeout, remaining);
+            socketTimeout = (int) Math.min(socketTimeout, remaining);
+        }
+
+        request.setConnectionTimeout(connectionTimeout);
+        request.setSocketTimeout(socketTimeout);
+    }
+
+    private static TelerivetDeadlineExceededException deadlineExceeded(TransportRequest request, String path, IOException cause)
+    {
+        return new TelerivetDeadlineExceededException("Deadline exceeded while waiting for response to "
+            + request.getMethod() + " " + path, cause);
+    }
+
+    /**
+        Whether a retry after the given delay in milliseconds would be sent before the
+        deadline expires.
+    */
+    private static boolean hasTimeToRetry(Deadline deadline, long delay)
+    {
+        return deadline == null || TimeUnit.MILLISECONDS.toNanos(delay) < deadline.getRemainingNanos();
+    }
+
+    TransportRequest buildRequest(String method, String path, JSONObject params) throws IOException
+    {
+        StringBuilder url = new StringBuilder(apiUrl.length() + path.length() + 64).append(apiUrl).append(path);
+        RequestBody body = null;
+        String contentEncoding = null;
+
+        if ("POST".equals(method) || "PUT".equals(method))
+        {
+            if (params != null)
+            {
+                // serialize at most gzipThreshold characters to decide whether to compress
+                String paramsJson = JsonRequestBody.toStringIfShorter(params, gzipThreshold);
+                if (paramsJson != null)
+                {
+                    body = RequestBody.create(paramsJson.getBytes(StandardCharsets.UTF_8));
+                }
+                else
+                {
+                    body = new JsonRequestBody(params, gzipLevel);
+                    contentEncoding = "gzip";
+                }
+            }
+        }
+        else if ("GET".equals(method) || "DELETE".equals(method))
+        {
+            if (params != null && params.length() > 0)
+            {
+                url.append('?');
+                int queryStart = url.length();
+                StringBuilder name = new StringBuilder(32);
+
+                Iterator<String> keysIter = params.keys();
+                while (keysIter.hasNext())
+                {
+                    String key = keysIter.next();
+                    name.setLength(0);
+                    appendFormEncoded(name, key);
+                    appendQueryParam(url, name, params.get(key), queryStart);
+                }
+            }
+        }
+        else
+        {
+            throw new InvalidParameterException("Invalid HTTP method");
+        }
+
+        TransportRequest request = new TransportRequest(method, url.toString());
+        if ("POST".equals(method) || "PUT".equals(method))
+        {
+            request.setHeader("Content-Type", "application/json");
+        }
+        if (contentEncoding != null)
+        {
+            request.setHeader("Content-Encoding", contentEncoding);
+        }
+        request.setBody(body);
+
+        request.setHeader("Authorization", authorizationHeader);
+        request.setHeader("User-Agent", userAgent);
+        request.setDeadline(Deadline.current());
+
+        return request;
+    }
+
+    /**
+        Adds conditional headers to a GET request if a response to it is cached, returning
+        the lookup to pass to readResponse (or null if there is no response cache).
+    */
+    private HttpResponseCache.Lookup prepareCachedRequest(TransportRequest request)
+    {
+        HttpResponseCache cache = responseCache;
+        if (cache == null || !"GET".equals(request.getMethod()))
+        {
+            return null;
+        }
+        return cache.prepareRequest(request);
+    }
+
+    /**
+        Parses the response body (or returns the cached response if the server returned
+        304 Not Modified), caching successful (2xx) responses to GET requests if a response
+        cache is set.
+    */
+    private Object readResponse(TransportRequest request, TransportResponse response, ResponseReader reader,
+        HttpResponseCache.Lookup cacheLookup) throws IOException
+    {
+        HttpResponseCache cache = responseCache;
+        if (cache == null || cacheLookup == null)
+        {
+            return readResponse(response, reader);
+        }
+
+        if (cacheLookup.cached != null && response.getStatusCode() == 304)
+        {
+            try
+            {
+                reader.drain();
+            }
+            catch (IOException ex)
+            {
+                throw connectionError(ex);
+            }
+            finally
+            {
+                reader.close();
+                response.close();
+            }
+            return cache.getNotModified(cacheLookup);
+        }
+
+        Object result = readResponse(response, reader);
+        int statusCode = response.getStatusCode();
+        if (statusCode >= 200 && statusCode < 300)
+        {
+            cache.put(request.getUrl(), response, result, cacheLookup);
+        }
+        return result;
+    }
+
+    /**
+        Parses the response body and closes the response. If the body could not be read,
+        throws a connection error and the reader's getReadError() is set.
+    */
+    private Object readResponse(TransportResponse response, ResponseReader reader) throws IOException
+    {
+        try
+        {
+            return parseResponse(response.getStatusCode(), reader);
+        }
+        catch (IOException ex)
+        {
+            if (reader.getReadError() != null)
+            {
+                throw connectionError(reader.getReadError());
+            }
+            throw ex;
+        }
+        finally
+        {
+            reader.close();
+            response.close();
+        }
+    }
+
+    private Object parseResponse(int statusCode, ResponseReader reader) throws JSONException, IOException
+    {
+        Object responseData;
+        try
+        {
+            responseData = new JSONTokener(reader, STRICT_PARSER_CONFIGURATION).nextValue();
+            reader.drain();
+        }
+        catch (JSONException ex)
+        {
+            if (reader.getReadError() != null)
+            {
+                throw reader.getReadError();
+            }
+            throw new TelerivetAPIException("Unexpected response from Telerivet API (HTTP " + statusCode + "): " + reader.readPrefix(), null);
+        }
+
+        if (responseData instanceof JSONObject)
+        {
+            JSONObject responseObj = (JSONObject)responseData;
+
+            JSONObject error = responseObj.optJSONObject("error");
+            if (error != null)
+            {
+                throw createException(error);
+            }
+            else
+            {
+                return responseData;
+            }
+        }
+        else
+        {
+            return responseData;
+        }
+    }
+
+    /**
+        Returns the exception corresponding to an error object in an API response.
+    */
+    static TelerivetAPIException createException(JSONObject error)
+    {
+        String code = error.optString("code");
+        String message = error.optString("message");
+        if ("invalid_param".equals(code))
+        {
+            return new TelerivetInvalidParameterException(message, code, error.optString("param"));
+        }
+        else if ("not_found".equals(code))
+        {
+            return new TelerivetNotFoundException(message, code);
+        }
+        else
+        {
+            return new TelerivetAPIException(message, code);
+        }
+    }
+
+    private void recordRequest(TransportRequest request, String path, int attempt, long latencyNanos,
+        TransportResponse response, long responseBytes, IOException error, ApiRequestFlightEvent flightEvent)
+    {
+        String errorCode = null;
+        if (error != null)
+        {
+            String apiErrorCode = (error instanceof TelerivetAPIException) ? ((TelerivetAPIException) error).getCode() : null;
+            if (apiErrorCode != null && apiErrorCode.length() > 0)
+            {
+                errorCode = apiErrorCode;
+            }
+            else if (response != null)
+            {
+                errorCode = "http_" + response.getStatusCode();
+            }
+            else
+            {
+                errorCode = "connection_error";
+            }
+        }
+
+        RequestBody requestBody = request.getBody();
+        RequestEvent event = new RequestEvent(request.getMethod(), path, response != null ? response.getStatusCode() : 0,
+            latencyNanos, requestBody != null ? Math.max(0, requestBody.getBytesWritten()) : 0, responseBytes,
+            "gzip".equals(request.getHeader("Content-Encoding")), attempt, errorCode);
+
+        metrics.onRequest(event);
+
+        if (!"GET".equals(request.getMethod()))
+        {
+            EntityCache cache = entityCache;
+            if (cache != null)
+            {
+                cache.invalidatePath(path);
+            }
+            HttpResponseCache httpCache = responseCache;
+            if (httpCache != null)
+            {
+                httpCache.invalidate(apiUrl + path);
+            }
+        }
+
+        flightEvent.end();
+        if (flightEvent.shouldCommit())
+        {
+            flightEvent.method = event.getMethod();
+            flightEvent.pathTemplate = event.getPathTemplate();
+            flightEvent.statusCode = event.getStatusCode();
+            flightEvent.requestBytes = event.getRequestBytes();
+            flightEvent.responseBytes = event.getResponseBytes();
+            flightEvent.gzipped = event.isGzipped();
+            flightEvent.retry = attempt - 1;
+            flightEvent.errorCode = errorCode;
+            flightEvent.commit();
+        }
+
+        for (RequestListener listener : requestListeners)
+        {
+            try
+            {
+                listener.onRequest(event);
+            }
+            catch (RuntimeException ex)
+            {
+                // listeners must not affect API requests
+            }
+        }
+    }
+
+    /**
+        Returns the HttpTransport used to send API requests, creating the default
+        ApacheHttpTransport if no transport has been set.
+    */
+    public HttpTransport getTransport()
+    {
+        HttpTransport transport = this.transport;
+        if (transport == null)
+        {
+            synchronized (this)
+            {
+                transport = this.transport;
+                if (transport == null)
+                {
+                    transport = new ApacheHttpTransport();
+                    this.transport = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+        Prepares the client for its first requests, e.g. at application startup before
+        reporting the instance as ready, so that the first burst of API calls does not pay
+        for creating the transport, DNS lookups, and TCP and TLS handshakes.
+
+        <p>Sends the given number of concurrent probe requests (GET /projects with
+        page_size=1), so that the transport opens up to that many pooled connections and
+        the API key is checked. JSSE caches the TLS session of the first connection, so
+        the other connections can resume it with an abbreviated handshake. With
+        JavaHttpTransport, concurrent requests share one HTTP/2 connection.</p>
+
+        <p>Probes are sent once each, bypassing the caches, request coalescing, rate
+        limiters, circuit breakers and request listeners. They are limited by the current
+        Deadline, if any. Failed probes (e.g. because of an invalid API key) are reported
+        in the result instead of being thrown.</p>
+    */
+    public WarmUpResult warmUp(int connections)
+    {
+        if (connections < 1)
+        {
+            throw new IllegalArgumentException("connections must be positive");
+        }
+
+        HttpTransport transport = getTransport();
+        long startTime = System.nanoTime();
+
+        List<CompletableFuture<Long>> probes = new ArrayList<CompletableFuture<Long>>(connections);
+        for (int i = 0; i < connections; i++)
+        {
+            probes.add(sendProbe(transport));
+        }
+
+        int successCount = 0;
+        long minProbeTime = -1;
+        long maxProbeTime = -1;
+        IOException error = null;
+        boolean interrupted = false;
+        for (CompletableFuture<Long> probe : probes)
+        {
+            long probeTime;
+            try
+            {
+                probeTime = probe.get();
+            }
+            catch (InterruptedException ex)
+            {
+                interrupted = true;
+                if (error == null)
+                {
+                    error = new InterruptedIOException("Interrupted while warming up");
+                }
+                continue;
+            }
+            catch (ExecutionException ex)
+            {
+                Throwable cause = unwrapCompletionException(ex);
+                if (error == null)
+                {
+                    error = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                }
+                continue;
+            }
+            successCount++;
+            minProbeTime = minProbeTime < 0 ? probeTime : Math.min(minProbeTime, probeTime);
+            maxProbeTime = Math.max(maxProbeTime, probeTime);
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        long elapsedTime = (System.nanoTime() - startTime) / 1000;
+        ConnectionPoolStats poolStats = transport instanceof ApacheHttpTransport
+            ? ((ApacheHttpTransport) transport).getPoolStats() : null;
+        return new WarmUpResult(connections, successCount, elapsedTime, minProbeTime, maxProbeTime, error, poolStats);
+    }
+
+    /**
+        Sends one warm-up probe, completing with its time in microseconds.
+    */
+    private CompletableFuture<Long> sendProbe(HttpTransport transport)
+    {
+        final CompletableFuture<Long> result = new CompletableFuture<Long>();
+        String path = getBaseApiPath() + "/projects";
+
+        TransportRequest request;
+        try
+        {
+            JSONObject params = new JSONObject();
+            params.put("page_size", 1);
+            request = buildRequest("GET", path, params);
+            applyTimeouts(request, path);
+        }
+        catch (IOException ex)
+        {
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        this.numRequests.increment();
+
+        final long startTime = System.nanoTime();
+        transport.executeAsync(request).whenComplete((response, error) -> {
+            if (error != null)
+            {
+                Throwable cause = unwrapCompletionException(error);
+                result.completeExceptionally(cause instanceof IOException ? connectionError((IOException) cause) : cause);
+                return;
+            }
+            try
+            {
+                readResponse(response, new ResponseReader(response.getBody()));
+                result.complete((System.nanoTime() - startTime) / 1000);
+            }
+            catch (Throwable ex)
+            {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+        Sets the HttpTransport used to send API requests, e.g. a JavaHttpTransport to
+        multiplex concurrent requests over HTTP/2.
+    */
+    public void setTransport(HttpTransport transport)
+    {
+        this.transport = transport;
+    }
+
+    public RetryPolicy getRetryPolicy()
+    {
+        return retryPolicy;
+    }
+
+    /**
+        Sets the policy that decides which failed requests are retried. By default, failed
+        requests are not retried. Use an ExponentialBackoffRetryPolicy to retry GET, PUT and
+        DELETE requests after connection errors and HTTP 429/502/503/504 responses.
+    */
+    public void setRetryPolicy(RetryPolicy retryPolicy)
+    {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+        Returns the number of retries made by this client so far, keyed by HTTP method and
+        path template, e.g. "GET /projects/{id}/contacts".
+    */
+    public Map<String, Long> getRetryCounts()
+    {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : retryCounts.entrySet())
+        {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    /**
+        Sets the maximum time in milliseconds to establish a connection to the API
+        (default HTTP_CONNECTION_TIMEOUT). For a limit on the total time of an API call,
+        including retries, use a Deadline.
+    */
+    public void setConnectionTimeout(int connectionTimeout)
+    {
+        if (connectionTimeout <= 0)
+        {
+            throw new IllegalArgumentException("connectionTimeout must be positive");
+        }
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public int getConnectionTimeout()
+    {
+        return connectionTimeout;
+    }
+
+    /**
+        Sets the maximum time in milliseconds to wait for data from the API while sending
+        a request and reading its response (default HTTP_SOCKET_TIMEOUT), e.g. shorter for
+        interactive requests or longer for large exports.
+    */
+    public void setSocketTimeout(int socketTimeout)
+    {
+        if (socketTimeout <= 0)
+        {
+            throw new IllegalArgumentException("socketTimeout must be positive");
+        }
+        this.socketTimeout = socketTimeout;
+    }
+
+    public int getSocketTimeout()
+    {
+        return socketTimeout;
+    }
+
+    /**
+        Sets the minimum length in characters of a JSON request body (for POST and PUT
+        requests) that is gzip-compressed. Bodies at or above the threshold are serialized
+        directly into the compressed stream as they are sent. Use Integer.MAX_VALUE to
+        disable compression.
+    */
+    public void setGzipThreshold(int gzipThreshold)
+    {
+        this.gzipThreshold = gzipThreshold;
+    }
+
+    /**
+        Sets the gzip compression level for request bodies, from 1 (fastest) to 9 (smallest),
+        or Deflater.DEFAULT_COMPRESSION.
+    */
+    public void setGzipLevel(int gzipLevel)
+    {
+        if ((gzipLevel < 1 || gzipLevel > 9) && gzipLevel != Deflater.DEFAULT_COMPRESSION)
+        {
+            throw new IllegalArgumentException("gzipLevel must be between 1 and 9");
+        }
+        this.gzipLevel = gzipLevel;
+    }
+
+    /**
+        Sets a cache for the responses to GET requests, which are revalidated with ETag and
+        Last-Modified headers (see HttpResponseCache), or null to disable it (the default).
+    */
+    public void setResponseCache(HttpResponseCache responseCache)
+    {
+        this.responseCache = responseCache;
+    }
+
+    public HttpResponseCache getResponseCache()
+    {
+        return responseCache;
+    }
+
+    /**
+        Sets a policy for hedging slow GET requests (see HedgingPolicy), or null to disable
+        hedging (the default).
+    */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy)
+    {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    public HedgingPolicy getHedgingPolicy()
+    {
+        return hedgingPolicy;
+    }
+
+    /**
+        Enables or disables coalescing of identical GET requests (disabled by default).
+        When enabled, a GET request with the same path and parameters as one that is
+        already in progress is not sent; instead the caller waits for the request in
+        progress and receives its own copy of the response (or the same exception).
+        Requests with a Deadline may wait for a request in progress, but other requests
+        never wait for them.
+    */
+    public void setRequestCoalescing(boolean coalesceRequests)
+    {
+        this.coalesceRequests = coalesceRequests;
+    }
+
+    public boolean isRequestCoalescing()
+    {
+        return coalesceRequests;
+    }
+
+    /**
+        Returns the number of GET requests that were not sent because an identical request
+        was already in progress.
+    */
+    public long getCoalescedRequestCount()
+    {
+        return coalescedRequests.sum();
+    }
+
+    /**
+        Sets a cache for entities looked up by ID (see EntityCache), or null to disable
+        caching (the default).
+    */
+    public void setEntityCache(EntityCache entityCache)
+    {
+        this.entityCache = entityCache;
+    }
+
+    public EntityCache getEntityCache()
+    {
+        return entityCache;
+    }
+
+    /**
+        Loads an entity by ID from the entity cache if one is set, otherwise (or if it is
+        not cached) with a GET request to the given path.
+    */
+    <T> T getCachedEntity(Class<T> type, String id, String path, Function<JSONObject, T> factory) throws IOException
+    {
+        EntityCache cache = entityCache;
+        if (cache == null)
+        {
+            return factory.apply((JSONObject) doRequest("GET", path));
+        }
+
+        JSONObject data = cache.get(type, id);
+        if (data == null)
+        {
+            long version = cache.getVersion(id);
+            data = (JSONObject) doRequest("GET", path);
+            cache.put(type, id, data, version);
+        }
+        return factory.apply(data);
+    }
+
+    /**
+        Asynchronous version of getCachedEntity.
+    */
+    <T> CompletableFuture<T> getCachedEntityAsync(Class<T> type, String id, String path, Function<JSONObject, T> factory)
+    {
+        final EntityCache cache = entityCache;
+        if (cache == null)
+        {
+            return doRequestAsync("GET", path, null, res -> factory.apply((JSONObject) res));
+        }
+
+        JSONObject data = cache.get(type, id);
+        if (data != null)
+        {
+            return CompletableFuture.completedFuture(factory.apply(data));
+        }
+
+        final long version = cache.getVersion(id);
+        return doRequestAsync("GET", path, null, res -> {
+            cache.put(type, id, (JSONObject) res, version);
+            return factory.apply((JSONObject) res);
+        });
+    }
+
+    /**
+        Returns the metrics (request counts, latencies, bytes and errors per endpoint)
+        recorded for the requests made by this client.
+    */
+    public RequestMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+        Adds a listener that is called after every HTTP request made by this client.
+    */
+    public void addRequestListener(RequestListener listener)
+    {
+        requestListeners.add(listener);
+    }
+
+    public void removeRequestListener(RequestListener listener)
+    {
+        requestListeners.remove(listener);
+    }
+
+    /**
+        Sets a rate limiter shared by all requests made by this client (including each
+        retry and each page loaded by a cursor), or null for no global limit.
+    */
+    public void setRateLimiter(RateLimiter rateLimiter)
+    {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+        Sets a rate limiter for one group of endpoints, e.g. to send messages more slowly
+        than queries are made, or null to remove it. A request must get a permit from both
+        its group's rate limiter and the global rate limiter.
+
+        <pre>
+        tr.setRateLimiter(EndpointGroup.SEND, new TokenBucketRateLimiter(10, 20));
+        </pre>
+    */
+    public void setRateLimiter(EndpointGroup group, RateLimiter rateLimiter)
+    {
+        if (rateLimiter == null)
+        {
+            groupRateLimiters.remove(group);
+        }
+        else
+        {
+            groupRateLimiters.put(group, rateLimiter);
+        }
+    }
+
+    /**
+        Sets a circuit breaker for one group of endpoints, or null to remove it. While the
+        breaker is open, requests to the group fail immediately with
+        TelerivetCircuitOpenException.
+    */
+    public void setCircuitBreaker(EndpointGroup group, CircuitBreaker circuitBreaker)
+    {
+        if (circuitBreaker == null)
+        {
+            circuitBreakers.remove(group);
+        }
+        else
+        {
+            circuitBreaker.stateChangeHandler = (from, to) -> notifyCircuitStateChange(group, from, to);
+            circuitBreakers.put(group, circuitBreaker);
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker(EndpointGroup group)
+    {
+        return circuitBreakers.get(group);
+    }
+
+    /**
+        Sets a bulkhead limiting the number of concurrent requests to one group of
+        endpoints, or null to remove it. Each retry of a request takes a new permit.
+    */
+    public void setBulkhead(EndpointGroup group, Bulkhead bulkhead)
+    {
+        if (bulkhead == null)
+        {
+            bulkheads.remove(group);
+        }
+        else
+        {
+            bulkheads.put(group, bulkhead);
+        }
+    }
+
+    public Bulkhead getBulkhead(EndpointGroup group)
+    {
+        return bulkheads.get(group);
+    }
+
+    /**
+        Adds a listener that is notified when a circuit breaker changes state or a bulkhead
+        rejects a request.
+    */
+    public void addIsolationListener(IsolationListener listener)
+    {
+        isolationListeners.add(listener);
+    }
+
+    public void removeIsolationListener(IsolationListener listener)
+    {
+        isolationListeners.remove(listener);
+    }
+
+    /**
+        Sets the maximum time in milliseconds that a request waits for a rate limiter
+        permit before failing with TelerivetRateLimitException. Use 0 to fail fast instead of
+        waiting. By default requests wait as long as needed.
+    */
+    public void setRateLimitMaxWait(long maxWait)
+    {
+        this.rateLimitMaxWaitNanos = maxWait < Long.MAX_VALUE / 1000000 ? TimeUnit.MILLISECONDS.toNanos(maxWait) : Long.MAX_VALUE;
+    }
+
+    private void recordRetry(String method, String path)
+    {
+        retryCounts.computeIfAbsent(method + " " + Util.getPathTemplate(path), key -> new LongAdder()).increment();
+    }
+
+    private static final class InFlightRequest
+    {
+        final CompletableFuture<Object> response = new CompletableFuture<Object>();
+
+        // only modified while holding the inFlightRequests map entry
+        volatile int followers = 0;
+    }
+
+    /**
+        The original and (possibly) hedged request for one attempt. The first successful
+        response wins. If the original request fails before the hedge is sent, no hedge is
+        sent; otherwise the exchange fails once both requests have failed.
+    */
+    private static final class HedgedExchange
+    {
+        final CompletableFuture<TransportResponse> response = new CompletableFuture<TransportResponse>();
+
+        // the original request and the hedge (until it is skipped or its response arrives)
+        private final AtomicInteger outstanding = new AtomicInteger(2);
+        private final AtomicBoolean hedgeDecided = new AtomicBoolean();
+        private volatile Throwable firstError;
+
+        /**
+            Returns true if the caller should decide whether to send the hedged request,
+            or false if the original request has already failed.
+        */
+        boolean startHedge()
+        {
+            return hedgeDecided.compareAndSet(false, true);
+        }
+
+        void skipHedge()
+        {
+            finishRequest();
+        }
+
+        /**
+            Called when a request completes; hedging is non-null for the hedged request.
+        */
+        void onResponse(TransportResponse result, Throwable error, HedgingPolicy hedging)
+        {
+            if (result != null)
+            {
+                if (response.complete(result))
+                {
+                    if (hedging != null)
+                    {
+                        hedging.recordHedgeWin();
+                    }
+                }
+                else
+                {
+                    closeQuietly(result);
+                }
+            }
+            else
+            {
+                if (firstError == null)
+                {
+                    firstError = unwrapCompletionException(error);
+                }
+                if (hedging == null && hedgeDecided.compareAndSet(false, true))
+                {
+                    // fail without waiting for the hedging delay
+                    finishRequest();
+                }
+            }
+            finishRequest();
+        }
+
+        private void finishRequest()
+        {
+            if (outstanding.decrementAndGet() == 0 && firstError != null)
+            {
+                response.completeExceptionally(firstError);
+            }
+        }
+    }
+
+    /**
+        The circuit breaker and bulkhead (either may be null) that permitted one request.
+    */
+    private static final class IsolationPermit
+    {
+        final CircuitBreaker circuitBreaker;
+        final Bulkhead bulkhead;
+
+        IsolationPermit(CircuitBreaker circuitBreaker, Bulkhead bulkhead)
+        {
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.telerivet;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+    A token bucket rate limiter that allows a sustained rate of requests per second with
+    bursts of up to <code>burstSize</code> requests.
+
+    <p>Implemented with the generic cell rate algorithm: the only state is the theoretical
+    arrival time of the next request, updated with compare-and-set, so threads never block
+    each other. Waiting callers are granted permits in the order they reserved them.</p>
+*/
+public class TokenBucketRateLimiter implements RateLimiter
+{
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+        @param permitsPerSecond sustained number of requests allowed per second
+        @param burstSize number of requests that may be sent at once after a period of inactivity
+    */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burstSize)
+    {
+        if (permitsPerSecond <= 0 || burstSize < 1)
+        {
+            throw new IllegalArgumentException("permitsPerSecond and burstSize must be positive");
+        }
+        this.intervalNanos = (long) (1000000000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * burstSize;
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    @Override
+    public long reserve(long maxWaitNanos)
+    {
+        while (true)
+        {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalTime.get();
+
+            // the bucket can't hold more than burstSize permits, however long it was idle
+            long start = (tat - now < 0) ? now : tat;
+            long newTat = start + intervalNanos;
+            long waitNanos = newTat - burstNanos - now;
+            if (waitNanos < 0)
+            {
+                waitNanos = 0;
+            }
+            if (waitNanos > maxWaitNanos)
+            {
+                return -1;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat))
+            {
+                return waitNanos;
+            }
+        }
+    }
+
+    @Override
+    public void refund()
+    {
+        // reserve() never lets an idle bucket hold more than burstSize permits, so moving
+        // the arrival time back can't grant extra permits later
+        theoreticalArrivalTime.addAndGet(-intervalNanos);
+    }
+}
@@ -0,0 +1,130 @@
+package com.telerivet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+    An HTTP request built by TelerivetAPI, independent of the HttpTransport that sends it.
+*/
+public class TransportRequest
+{
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+    private RequestBody body;
+    private int connectionTimeout = TelerivetAPI.HTTP_CONNECTION_TIMEOUT;
+    private int socketTimeout = TelerivetAPI.HTTP_SOCKET_TIMEOUT;
+    private Deadline deadline;
+
+    public TransportRequest(String method, String url)
+    {
+        this.method = method;
+        this.url = url;
+    }
+
+    /**
+        Returns a copy of this request with its own headers, which shares the request body.
+        TelerivetAPI sends a copy for each attempt and each hedged request, so that the
+        headers of a request are not changed while a transport may still be using them.
+    */
+    public TransportRequest copy()
+    {
+        TransportRequest copy = new TransportRequest(method, url);
+        copy.headers.putAll(headers);
+        copy.body = body;
+        copy.connectionTimeout = connectionTimeout;
+        copy.socketTimeout = socketTimeout;
+        copy.deadline = deadline;
+        return copy;
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public Map<String, String> getHeaders()
+    {
+        return headers;
+    }
+
+    public String getHeader(String name)
+    {
+        return headers.get(name);
+    }
+
+    public void setHeader(String name, String value)
+    {
+        headers.put(name, value);
+    }
+
+    public void removeHeader(String name)
+    {
+        headers.remove(name);
+    }
+
+    /**
+        Returns the (possibly compressed) request body, or null if the request has no body.
+    */
+    public RequestBody getBody()
+    {
+        return body;
+    }
+
+    public void setBody(RequestBody body)
+    {
+        this.body = body;
+    }
+
+    public void setBody(byte[] body)
+    {
+        this.body = body != null ? RequestBody.create(body) : null;
+    }
+
+    /**
+        Maximum time in milliseconds to establish a connection for this request.
+    */
+    public int getConnectionTimeout()
+    {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(int connectionTimeout)
+    {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    /**
+        Maximum time in milliseconds to wait for data from the server while sending this
+        request and reading the response.
+    */
+    public int getSocketTimeout()
+    {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout)
+    {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+        Returns the deadline by which the request must complete, or null if there is none.
+        Transports should cancel the request if it is still in progress when the deadline
+        expires.
+    */
+    public Deadline getDeadline()
+    {
+        return deadline;
+    }
+
+    public void setDeadline(Deadline deadline)
+    {
+        this.deadline = deadline;
+    }
+}
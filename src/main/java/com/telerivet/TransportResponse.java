@@ -0,0 +1,63 @@
+package com.telerivet;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+    An HTTP response returned by an HttpTransport. The body is already decompressed.
+
+    <p>Closing the response releases the underlying connection back to the transport.</p>
+*/
+public class TransportResponse implements Closeable
+{
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+
+    public TransportResponse(int statusCode, Map<String, List<String>> headers, InputStream body)
+    {
+        this.statusCode = statusCode;
+        this.headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null)
+        {
+            this.headers.putAll(headers);
+        }
+        this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+    }
+
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    /**
+        Returns the first value of the given response header, or null if it was not sent.
+    */
+    public String getHeader(String name)
+    {
+        List<String> values = headers.get(name);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    public Map<String, List<String>> getHeaders()
+    {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public InputStream getBody()
+    {
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        body.close();
+    }
+}
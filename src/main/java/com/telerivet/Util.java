@@ -1,13 +1,18 @@
 package com.telerivet;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.regex.Pattern;
 
 /**
  *
  * @author youngj
  */
 public class Util {
+    static final Pattern ID_SEGMENT = Pattern.compile("/[A-Z]{2}[0-9A-Za-z]{6,}(?=/|$)");
+
     public static JSONObject options(Object... params)
     {
         JSONObject options = new JSONObject();
@@ -91,4 +96,52 @@ public class Util {
             return ((Date)obj).getTime() / 1000;
         }
     }
+    
+    /**
+        Replaces the object IDs in an API path with {id}, e.g. /projects/PJ123abc456/contacts
+        becomes /projects/{id}/contacts, so that requests to the same endpoint can be
+        grouped together.
+    */
+    public static String getPathTemplate(String path)
+    {
+        int queryIndex = path.indexOf('?');
+        if (queryIndex != -1)
+        {
+            path = path.substring(0, queryIndex);
+        }
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    /**
+        Returns a copy of a parsed JSON value in which all nested JSONObjects and JSONArrays
+        are copied too, so that modifying the copy does not affect the original.
+    */
+    @SuppressWarnings("unchecked")
+    static <T> T deepCopy(T value)
+    {
+        if (value instanceof JSONObject)
+        {
+            JSONObject obj = (JSONObject)value;
+            JSONObject copy = new JSONObject();
+            Iterator<String> keysIter = obj.keys();
+            while (keysIter.hasNext())
+            {
+                String key = keysIter.next();
+                copy.put(key, deepCopy(obj.get(key)));
+            }
+            return (T)copy;
+        }
+        else if (value instanceof JSONArray)
+        {
+            JSONArray arr = (JSONArray)value;
+            int len = arr.length();
+            JSONArray copy = new JSONArray();
+            for (int i = 0; i < len; i++)
+            {
+                copy.put(deepCopy(arr.get(i)));
+            }
+            return (T)copy;
+        }
+        return value;
+    }
 }
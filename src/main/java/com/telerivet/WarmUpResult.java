@@ -0,0 +1,109 @@
+package com.telerivet;
+
+import java.io.IOException;
+
+/**
+    Outcome of TelerivetAPI.warmUp(), e.g. for a readiness check that only reports an
+    instance as ready once it can reach the API:
+
+    <pre>
+    WarmUpResult warmUp = tr.warmUp(10);
+    if (!warmUp.isSuccessful())
+    {
+        throw warmUp.getError();
+    }
+    </pre>
+
+    Times are in microseconds.
+*/
+public class WarmUpResult
+{
+    private final int probeCount;
+    private final int successCount;
+    private final long elapsedTime;
+    private final long minProbeTime;
+    private final long maxProbeTime;
+    private final IOException error;
+    private final ConnectionPoolStats poolStats;
+
+    WarmUpResult(int probeCount, int successCount, long elapsedTime, long minProbeTime, long maxProbeTime,
+        IOException error, ConnectionPoolStats poolStats)
+    {
+        this.probeCount = probeCount;
+        this.successCount = successCount;
+        this.elapsedTime = elapsedTime;
+        this.minProbeTime = minProbeTime;
+        this.maxProbeTime = maxProbeTime;
+        this.error = error;
+        this.poolStats = poolStats;
+    }
+
+    /**
+        Whether all probe requests succeeded.
+    */
+    public boolean isSuccessful()
+    {
+        return successCount == probeCount;
+    }
+
+    public int getProbeCount()
+    {
+        return probeCount;
+    }
+
+    public int getSuccessCount()
+    {
+        return successCount;
+    }
+
+    /**
+        Time from sending the first probe until all probes completed.
+    */
+    public long getElapsedTime()
+    {
+        return elapsedTime;
+    }
+
+    /**
+        Time of the fastest successful probe, or -1 if none succeeded.
+    */
+    public long getMinProbeTime()
+    {
+        return minProbeTime;
+    }
+
+    /**
+        Time of the slowest successful probe (including its DNS lookup, connection and TLS
+        handshake), or -1 if none succeeded.
+    */
+    public long getMaxProbeTime()
+    {
+        return maxProbeTime;
+    }
+
+    /**
+        The exception of the first failed probe, or null if all succeeded.
+    */
+    public IOException getError()
+    {
+        return error;
+    }
+
+    /**
+        The state of the connection pool after warming up, or null if the transport is
+        not an ApacheHttpTransport.
+    */
+    public ConnectionPoolStats getPoolStats()
+    {
+        return poolStats;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[probes: " + successCount + "/" + probeCount + " succeeded; elapsed: " + elapsedTime
+            + "us; min: " + minProbeTime + "us; max: " + maxProbeTime + "us"
+            + (poolStats != null ? "; pool: " + poolStats : "")
+            + (error != null ? "; error: " + error.getMessage() : "") + "]";
+    }
+}
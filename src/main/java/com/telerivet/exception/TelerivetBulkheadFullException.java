@@ -0,0 +1,15 @@
+package com.telerivet.exception;
+
+/**
+    Thrown when a request is not sent because the maximum number of concurrent requests
+    to its endpoint group are already in progress.
+*/
+public class TelerivetBulkheadFullException extends TelerivetAPIException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TelerivetBulkheadFullException(String message)
+    {
+        super(message, "bulkhead_full");
+    }
+}
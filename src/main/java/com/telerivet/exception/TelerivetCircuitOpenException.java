@@ -0,0 +1,15 @@
+package com.telerivet.exception;
+
+/**
+    Thrown when a request is not sent because the circuit breaker for its endpoint group
+    is open, after too many recent requests to the group failed.
+*/
+public class TelerivetCircuitOpenException extends TelerivetAPIException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TelerivetCircuitOpenException(String message)
+    {
+        super(message, "circuit_open");
+    }
+}
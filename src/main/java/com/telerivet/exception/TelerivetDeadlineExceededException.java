@@ -0,0 +1,22 @@
+package com.telerivet.exception;
+
+/**
+    Thrown when a request does not complete before the Deadline that applies to it, either
+    because the deadline expired before the request was sent or because the request in
+    progress was cancelled when it expired.
+*/
+public class TelerivetDeadlineExceededException extends TelerivetAPIException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TelerivetDeadlineExceededException(String message)
+    {
+        super(message, "deadline_exceeded");
+    }
+
+    public TelerivetDeadlineExceededException(String message, Throwable cause)
+    {
+        super(message, "deadline_exceeded");
+        initCause(cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.telerivet.exception;
+
+/**
+    Thrown when a request is not sent because a client-side rate limiter has no permit
+    available within the configured maximum wait time.
+*/
+public class TelerivetRateLimitException extends TelerivetAPIException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TelerivetRateLimitException(String message)
+    {
+        super(message, "client_rate_limited");
+    }
+}
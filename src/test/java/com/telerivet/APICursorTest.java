@@ -0,0 +1,149 @@
+package com.telerivet;
+
+import java.io.InterruptedIOException;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class APICursorTest extends TestCase
+{
+    private static String page(int start, int count, boolean truncated)
+    {
+        JSONArray data = new JSONArray();
+        for (int i = start; i < start + count; i++)
+        {
+            data.put(new JSONObject().put("id", "SM" + i));
+        }
+        return new JSONObject().put("data", data).put("truncated", truncated).put("next_marker", "" + (start + count)).toString();
+    }
+
+    public void testPrefetchErrorIsThrownOnEveryLaterCall() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            if (query == null || !query.contains("marker="))
+            {
+                StubServer.respond(exchange, 200, page(0, 10, true));
+            }
+            else
+            {
+                StubServer.respond(exchange, 500, "{\"error\":{\"code\":\"internal_error\",\"message\":\"failed\"}}");
+            }
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            api.setRetryPolicy(RetryPolicy.none());
+            final APICursor<Message> cursor = new APICursor<Message>(api, Message.class, "/projects/PJ1/messages", null).prefetch(2);
+
+            for (int i = 0; i < 10; i++)
+            {
+                assertTrue(cursor.hasNext());
+                cursor.next();
+            }
+
+            for (int i = 0; i < 3; i++)
+            {
+                CompletableFuture<Throwable> call = CompletableFuture.supplyAsync(() -> {
+                    try
+                    {
+                        cursor.hasNext();
+                        return null;
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        return ex;
+                    }
+                });
+                Throwable error = call.get(5, TimeUnit.SECONDS);
+                assertNotNull("hasNext() should throw the page error", error);
+                assertTrue(error.getCause() instanceof com.telerivet.exception.TelerivetAPIException);
+            }
+        }
+    }
+
+    public void testInterruptWhileWaitingForPrefetchedPage() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            StubServer.sleep(5000);
+            StubServer.respond(exchange, 200, page(0, 10, false));
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            final APICursor<Message> cursor = new APICursor<Message>(api, Message.class, "/projects/PJ1/messages", null).prefetch(1);
+
+            final Thread caller = Thread.currentThread();
+            Thread interrupter = new Thread(() -> {
+                StubServer.sleep(200);
+                caller.interrupt();
+            });
+            interrupter.start();
+
+            long start = System.nanoTime();
+            try
+            {
+                cursor.hasNext();
+                fail("expected an exception");
+            }
+            catch (RuntimeException ex)
+            {
+                assertTrue(ex.getCause() instanceof InterruptedIOException);
+                assertTrue(Thread.interrupted());
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+            interrupter.join();
+        }
+    }
+
+    public void testPrefetchReturnsAllPagesInOrder() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            int start = query != null && query.contains("marker=") ? Integer.parseInt(query.replaceAll(".*marker=(\\d+).*", "$1")) : 0;
+            StubServer.respond(exchange, 200, page(start, 10, start + 10 < 95));
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            APICursor<Message> cursor = new APICursor<Message>(api, Message.class, "/projects/PJ1/messages", null).prefetch(3);
+            int count = 0;
+            while (cursor.hasNext())
+            {
+                assertEquals("SM" + count, cursor.next().getId());
+                count++;
+            }
+            assertEquals(100, count);
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    public void testSplitIsRefusedWhenNoPageSlotIsFree() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            int start = query != null && query.contains("marker=") ? Integer.parseInt(query.replaceAll(".*marker=(\\d+).*", "$1")) : 0;
+            StubServer.respond(exchange, 200, page(start, 10, start + 10 < 50));
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            APICursor<Message> cursor = new APICursor<Message>(api, Message.class, "/projects/PJ1/messages", null);
+            Spliterator<Message> spliterator = cursor.stream(1).spliterator();
+
+            Spliterator<Message> first = spliterator.trySplit();
+            assertNotNull(first);
+            assertNull("no page slot is free", spliterator.trySplit());
+
+            int count = 0;
+            while (first.tryAdvance(message -> { }))
+            {
+                count++;
+            }
+            assertEquals(10, count);
+
+            Spliterator<Message> second = spliterator.trySplit();
+            assertNotNull(second);
+            assertTrue(second.tryAdvance(message -> assertEquals("SM10", message.getId())));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.telerivet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class ApacheHttpTransportTest extends TestCase
+{
+    /**
+        A server that reads each request and closes the connection without responding,
+        which Apache's DefaultHttpRequestRetryHandler would retry up to 3 times.
+    */
+    public void testRetryPolicyIsTheOnlyRetryLayer() throws Exception
+    {
+        final AtomicInteger connections = new AtomicInteger();
+        try (final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress()))
+        {
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed())
+                {
+                    try (Socket socket = serverSocket.accept())
+                    {
+                        connections.incrementAndGet();
+                        readRequestHeaders(socket.getInputStream());
+                    }
+                    catch (IOException ex)
+                    {
+                        // closed
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            ApacheHttpTransport transport = new ApacheHttpTransport();
+            TelerivetAPI api = new TelerivetAPI("key", "http://127.0.0.1:" + serverSocket.getLocalPort() + "/v1", transport);
+            api.setRetryPolicy(RetryPolicy.none());
+            try
+            {
+                api.doRequest("GET", "/projects/PJ1");
+                fail("expected a connection error");
+            }
+            catch (IOException ex)
+            {
+                // expected
+            }
+            finally
+            {
+                transport.close();
+            }
+        }
+        assertEquals(1, connections.get());
+    }
+
+    public void testClosedTransportRejectsRequests() throws Exception
+    {
+        ApacheHttpTransport transport = new ApacheHttpTransport();
+        transport.close();
+
+        TransportRequest request = new TransportRequest("GET", "http://127.0.0.1:1/v1/projects");
+        try
+        {
+            transport.execute(request);
+            fail("expected IOException");
+        }
+        catch (IOException ex)
+        {
+            assertEquals("Transport is closed", ex.getMessage());
+        }
+
+        try
+        {
+            transport.executeAsync(request).join();
+            fail("expected IOException");
+        }
+        catch (java.util.concurrent.CompletionException ex)
+        {
+            assertTrue(ex.getCause() instanceof IOException);
+            assertEquals("Transport is closed", ex.getCause().getMessage());
+        }
+    }
+
+    private static void readRequestHeaders(InputStream in) throws IOException
+    {
+        int matched = 0;
+        int b;
+        while (matched < 4 && (b = in.read()) != -1)
+        {
+            matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+    }
+}
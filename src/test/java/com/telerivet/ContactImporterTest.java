@@ -0,0 +1,75 @@
+package com.telerivet;
+
+import com.telerivet.exception.TelerivetAPIException;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class ContactImporterTest extends TestCase
+{
+    public void testRowsWithoutIdOrWithErrorsAreReportedAsFailures() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            JSONArray contacts = new JSONObject(StubServer.getRequestBody(exchange)).getJSONArray("contacts");
+            JSONArray results = new JSONArray();
+            for (int i = 0; i < contacts.length(); i++)
+            {
+                String name = contacts.getJSONObject(i).getString("name");
+                if ("null".equals(name))
+                {
+                    results.put(JSONObject.NULL);
+                }
+                else if ("no_id".equals(name))
+                {
+                    results.put(new JSONObject().put("id", JSONObject.NULL));
+                }
+                else if ("error_message".equals(name))
+                {
+                    results.put(new JSONObject().put("error_message", "Invalid phone number"));
+                }
+                else
+                {
+                    results.put(new JSONObject().put("id", "CT" + name));
+                }
+            }
+            StubServer.respond(exchange, 200, new JSONObject().put("contacts", results).toString());
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            List<JSONObject> contacts = new ArrayList<JSONObject>();
+            for (int i = 0; i < 10; i++)
+            {
+                contacts.add(Util.options("name", "" + i));
+            }
+            contacts.set(2, Util.options("name", "null"));
+            contacts.set(5, Util.options("name", "no_id"));
+            contacts.set(7, Util.options("name", "error_message"));
+
+            final List<Long> imported = new ArrayList<Long>();
+            ContactImportReport report = ContactImporter.builder(api.initProjectById("PJ1"))
+                .setChunkSize(4)
+                .setMaxConcurrentRequests(1)
+                .setListener((index, result) -> {
+                    synchronized (imported)
+                    {
+                        imported.add(index);
+                    }
+                })
+                .build()
+                .run(contacts.iterator());
+
+            assertEquals(10, report.getTotalCount());
+            assertEquals(7, report.getImportedCount());
+            assertEquals(3, report.getFailedCount());
+            assertEquals(2, report.getFailures().get(0).getIndex());
+            assertEquals(5, report.getFailures().get(1).getIndex());
+            assertEquals(7, report.getFailures().get(2).getIndex());
+            assertEquals("Invalid phone number", report.getFailures().get(2).getError().getMessage());
+            assertTrue(report.getFailures().get(1).getError() instanceof TelerivetAPIException);
+            assertEquals(7, imported.size());
+            assertFalse(imported.contains(5L));
+        }
+    }
+}
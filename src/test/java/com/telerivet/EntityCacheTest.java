@@ -0,0 +1,92 @@
+package com.telerivet;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+public class EntityCacheTest extends TestCase
+{
+    private static final String PROJECT_ID = "PJ1234567890";
+    private static final String CONTACT_ID = "CT1234567890";
+    private static final String GROUP_ID = "CG1234567890";
+
+    private static JSONObject data(String id)
+    {
+        return new JSONObject().put("id", id);
+    }
+
+    public void testWriteToOtherEntityDoesNotPreventCaching()
+    {
+        EntityCache cache = EntityCache.builder().build();
+        long version = cache.getVersion(CONTACT_ID);
+        cache.invalidatePath("/projects/" + PROJECT_ID + "/contacts/CTabcdefghij");
+        cache.invalidatePath("/projects/" + PROJECT_ID + "/messages/send");
+        cache.put(Contact.class, CONTACT_ID, data(CONTACT_ID), version);
+        assertNotNull(cache.get(Contact.class, CONTACT_ID));
+    }
+
+    public void testInvalidationDuringLoadPreventsCaching()
+    {
+        EntityCache cache = EntityCache.builder().build();
+        long version = cache.getVersion(CONTACT_ID);
+        cache.invalidatePath("/projects/" + PROJECT_ID + "/contacts/" + CONTACT_ID);
+        cache.put(Contact.class, CONTACT_ID, data(CONTACT_ID), version);
+        assertNull(cache.get(Contact.class, CONTACT_ID));
+
+        version = cache.getVersion(CONTACT_ID);
+        cache.invalidateAll();
+        cache.put(Contact.class, CONTACT_ID, data(CONTACT_ID), version);
+        assertNull(cache.get(Contact.class, CONTACT_ID));
+    }
+
+    public void testInvalidatePathSkipsProjectId()
+    {
+        EntityCache cache = EntityCache.builder().build();
+        cache.put(Project.class, PROJECT_ID, data(PROJECT_ID), cache.getVersion(PROJECT_ID));
+        cache.put(Group.class, GROUP_ID, data(GROUP_ID), cache.getVersion(GROUP_ID));
+        cache.put(Contact.class, CONTACT_ID, data(CONTACT_ID), cache.getVersion(CONTACT_ID));
+
+        cache.invalidatePath("/projects/" + PROJECT_ID + "/groups/" + GROUP_ID + "/contacts/" + CONTACT_ID);
+        assertNotNull(cache.get(Project.class, PROJECT_ID));
+        assertNull(cache.get(Group.class, GROUP_ID));
+        assertNull(cache.get(Contact.class, CONTACT_ID));
+
+        cache.invalidatePath("/projects/" + PROJECT_ID);
+        assertNull(cache.get(Project.class, PROJECT_ID));
+    }
+
+    public void testOnlyWritesToTheEntityInvalidateIt() throws Exception
+    {
+        final AtomicInteger contactLoads = new AtomicInteger();
+        try (StubServer server = new StubServer(exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/messages/send"))
+            {
+                StubServer.respond(exchange, 200, data("SM1234567890").toString());
+            }
+            else
+            {
+                if ("GET".equals(exchange.getRequestMethod()))
+                {
+                    contactLoads.incrementAndGet();
+                }
+                StubServer.respond(exchange, 200, data(CONTACT_ID).put("name", "Alice").toString());
+            }
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            api.setEntityCache(EntityCache.builder().build());
+            Project project = api.initProjectById(PROJECT_ID);
+
+            Contact contact = project.getContactById(CONTACT_ID);
+            project.sendMessage(Util.options("to_number", "555-0001", "content", "hi"));
+            project.getContactById(CONTACT_ID);
+            assertEquals(1, contactLoads.get());
+
+            contact.setName("Bob");
+            contact.save();
+            project.getContactById(CONTACT_ID);
+            assertEquals(2, contactLoads.get());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.telerivet;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+public class HedgingTest extends TestCase
+{
+    /**
+        The primary request and the hedge of the first attempt both fail slowly, and the
+        request is retried, so three requests are sent. Each must get its own
+        TransportRequest, whose headers and timeouts no one changes after it was sent.
+    */
+    public void testEachAttemptAndHedgeSendsItsOwnRequest() throws Exception
+    {
+        final List<TransportRequest> sent = new ArrayList<TransportRequest>();
+        final List<Map<String, String>> sentHeaders = new ArrayList<Map<String, String>>();
+        final List<Integer> sentTimeouts = new ArrayList<Integer>();
+        final AtomicInteger calls = new AtomicInteger();
+
+        HttpTransport transport = new HttpTransport()
+        {
+            @Override
+            public TransportResponse execute(TransportRequest request)
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<TransportResponse> executeAsync(TransportRequest request)
+            {
+                synchronized (sent)
+                {
+                    sent.add(request);
+                    sentHeaders.add(new LinkedHashMap<String, String>(request.getHeaders()));
+                    sentTimeouts.add(request.getSocketTimeout());
+                }
+                boolean fail = calls.incrementAndGet() <= 2;
+                String body = fail ? "{\"error\":{\"code\":\"unavailable\",\"message\":\"unavailable\"}}" : "{\"id\":\"PJ1234567890\"}";
+                TransportResponse response = new TransportResponse(fail ? 503 : 200, null,
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+                CompletableFuture<TransportResponse> future = new CompletableFuture<TransportResponse>();
+                CompletableFuture.delayedExecutor(fail ? 200 : 0, TimeUnit.MILLISECONDS).execute(() -> future.complete(response));
+                return future;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+
+        TelerivetAPI api = new TelerivetAPI("key", "http://127.0.0.1:1/v1", transport);
+        api.setHedgingPolicy(HedgingPolicy.builder().setDelay(20).setBudget(100).build());
+        api.setRetryPolicy(ExponentialBackoffRetryPolicy.builder().setInitialBackoff(10).setJitter(0).build());
+        api.setResponseCache(HttpResponseCache.builder().build());
+
+        JSONObject result = (JSONObject) api.doRequestAsync("GET", "/projects/PJ1234567890").get(5, TimeUnit.SECONDS);
+        assertEquals("PJ1234567890", result.getString("id"));
+
+        synchronized (sent)
+        {
+            assertEquals(3, sent.size());
+            for (int i = 0; i < sent.size(); i++)
+            {
+                for (int j = 0; j < i; j++)
+                {
+                    assertNotSame(sent.get(i), sent.get(j));
+                }
+                assertEquals(sentHeaders.get(i), sent.get(i).getHeaders());
+                assertEquals(sentTimeouts.get(i).intValue(), sent.get(i).getSocketTimeout());
+            }
+        }
+    }
+}
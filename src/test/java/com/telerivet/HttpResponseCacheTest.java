@@ -0,0 +1,145 @@
+package com.telerivet;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+public class HttpResponseCacheTest extends TestCase
+{
+    private static final String CONTACT_PATH = "/projects/PJ1234567890/contacts/CT1234567890";
+
+    public void testETagRevalidation() throws Exception
+    {
+        final AtomicInteger fullResponses = new AtomicInteger();
+        try (StubServer server = new StubServer(exchange -> {
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+            {
+                StubServer.respond(exchange, 304, "");
+            }
+            else
+            {
+                fullResponses.incrementAndGet();
+                StubServer.respond(exchange, 200, "{\"id\":\"CT1234567890\",\"name\":\"Alice\"}");
+            }
+        }))
+        {
+            TelerivetAPI api = newClient(server);
+
+            JSONObject first = (JSONObject) api.doRequest("GET", CONTACT_PATH);
+            first.put("name", "changed by caller");
+            JSONObject second = (JSONObject) api.doRequest("GET", CONTACT_PATH);
+
+            assertEquals("Alice", second.getString("name"));
+            assertEquals(2, server.getRequestCount());
+            assertEquals(1, fullResponses.get());
+            assertEquals(1, api.getResponseCache().getStats().getNotModifiedCount());
+        }
+    }
+
+    public void testResponsesWithoutValidatorsAreReusedUntilTtl() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> StubServer.respond(exchange, 200, "{\"id\":\"CT1234567890\"}")))
+        {
+            TelerivetAPI api = newClient(server);
+
+            api.doRequest("GET", CONTACT_PATH);
+            api.doRequest("GET", CONTACT_PATH);
+            assertEquals(1, server.getRequestCount());
+            assertEquals(1, api.getResponseCache().getStats().getHitCount());
+        }
+    }
+
+    public void testWriteInvalidatesPathAndSubPaths() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> StubServer.respond(exchange, 200, "{\"id\":\"CT1234567890\"}")))
+        {
+            TelerivetAPI api = newClient(server);
+
+            api.doRequest("GET", CONTACT_PATH);
+            api.doRequest("GET", CONTACT_PATH + "/groups", Util.options("page_size", 50));
+            api.doRequest("GET", "/projects/PJ1234567890/contacts/CTabcdefghij");
+            assertEquals(3, api.getResponseCache().size());
+
+            api.doRequest("POST", CONTACT_PATH, Util.options("name", "Bob"));
+            assertEquals(1, api.getResponseCache().size());
+
+            api.doRequest("GET", CONTACT_PATH);
+            assertEquals(5, server.getRequestCount());
+        }
+    }
+
+    public void testResponseInFlightDuringInvalidationIsNotCached() throws Exception
+    {
+        final CountDownLatch getReceived = new CountDownLatch(1);
+        final CountDownLatch postDone = new CountDownLatch(1);
+        try (StubServer server = new StubServer(exchange -> {
+            if ("GET".equals(exchange.getRequestMethod()) && getReceived.getCount() > 0)
+            {
+                getReceived.countDown();
+                try
+                {
+                    postDone.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                StubServer.respond(exchange, 200, "{\"id\":\"CT1234567890\",\"name\":\"Alice\"}");
+            }
+            else
+            {
+                StubServer.respond(exchange, 200, "{\"id\":\"CT1234567890\",\"name\":\"Bob\"}");
+            }
+        }))
+        {
+            TelerivetAPI api = newClient(server);
+
+            CompletableFuture<Object> staleGet = api.doRequestAsync("GET", CONTACT_PATH);
+            assertTrue(getReceived.await(5, TimeUnit.SECONDS));
+            api.doRequest("POST", CONTACT_PATH, Util.options("name", "Bob"));
+            postDone.countDown();
+
+            assertEquals("Alice", ((JSONObject) staleGet.get(5, TimeUnit.SECONDS)).getString("name"));
+            assertEquals(0, api.getResponseCache().size());
+
+            JSONObject current = (JSONObject) api.doRequest("GET", CONTACT_PATH);
+            assertEquals("Bob", current.getString("name"));
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    public void testUnsuccessfulResponsesAreNotCached() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/redirected"))
+            {
+                StubServer.respond(exchange, 302, "{\"id\":\"CT1234567890\"}");
+            }
+            else
+            {
+                StubServer.respond(exchange, 503, "{\"status\":\"unavailable\"}");
+            }
+        }))
+        {
+            TelerivetAPI api = newClient(server);
+
+            api.doRequest("GET", CONTACT_PATH);
+            api.doRequest("GET", CONTACT_PATH);
+            api.doRequest("GET", CONTACT_PATH + "/redirected");
+            api.doRequest("GET", CONTACT_PATH + "/redirected");
+            assertEquals(4, server.getRequestCount());
+            assertEquals(0, api.getResponseCache().size());
+        }
+    }
+
+    private static TelerivetAPI newClient(StubServer server)
+    {
+        TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+        api.setResponseCache(HttpResponseCache.builder().setTtl(60000).build());
+        return api;
+    }
+}
@@ -0,0 +1,29 @@
+package com.telerivet;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import junit.framework.TestCase;
+
+public class JavaHttpTransportTest extends TestCase
+{
+    public void testRequestTimeoutIncludesConnectionTimeout() throws Exception
+    {
+        TransportRequest request = new TransportRequest("GET", "http://127.0.0.1:1/v1/projects");
+        request.setConnectionTimeout(2000);
+        request.setSocketTimeout(5000);
+
+        HttpRequest httpRequest = new JavaHttpTransport().toHttpRequest(request);
+        assertEquals(Duration.ofMillis(7000), httpRequest.timeout().get());
+    }
+
+    public void testRequestTimeoutIsLimitedByDeadline() throws Exception
+    {
+        TransportRequest request = new TransportRequest("GET", "http://127.0.0.1:1/v1/projects");
+        request.setConnectionTimeout(2000);
+        request.setSocketTimeout(5000);
+        request.setDeadline(Deadline.after(3000));
+
+        long timeout = new JavaHttpTransport().toHttpRequest(request).timeout().get().toMillis();
+        assertTrue(timeout > 2000 && timeout <= 3000);
+    }
+}
@@ -0,0 +1,69 @@
+package com.telerivet;
+
+import com.telerivet.exception.TelerivetAPIException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class MessageBatcherTest extends TestCase
+{
+    public void testFailedMessagesFailTheirOwnFutures() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            JSONArray messages = new JSONObject(StubServer.getRequestBody(exchange)).getJSONArray("messages");
+            JSONArray results = new JSONArray();
+            for (int i = 0; i < messages.length(); i++)
+            {
+                String content = messages.getJSONObject(i).getString("content");
+                JSONObject result = new JSONObject().put("id", "SM" + i).put("content", content).put("status", "queued");
+                if ("failed".equals(content))
+                {
+                    result.put("status", "failed");
+                }
+                else if ("error_message".equals(content))
+                {
+                    result.put("error_message", "Invalid phone number");
+                }
+                else if ("error".equals(content))
+                {
+                    result.put("error", new JSONObject().put("code", "invalid_param").put("message", "bad").put("param", "to_number"));
+                }
+                results.put(result);
+            }
+            StubServer.respond(exchange, 200, new JSONObject().put("messages", results).toString());
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            MessageBatcher batcher = MessageBatcher.builder(api.initProjectById("PJ1")).setLingerTime(1000).build();
+
+            CompletableFuture<Message> ok = batcher.send(Util.options("to_number", "555-0001", "content", "ok"));
+            CompletableFuture<Message> failed = batcher.send(Util.options("to_number", "555-0002", "content", "failed"));
+            CompletableFuture<Message> errorMessage = batcher.send(Util.options("to_number", "555-0003", "content", "error_message"));
+            CompletableFuture<Message> error = batcher.send(Util.options("to_number", "555-0004", "content", "error"));
+            batcher.close();
+
+            assertEquals("SM0", ok.get(5, TimeUnit.SECONDS).getId());
+            assertEquals("message_failed", getError(failed).getCode());
+            assertEquals("Invalid phone number", getError(errorMessage).getMessage());
+            assertEquals("invalid_param", getError(error).getCode());
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    private static TelerivetAPIException getError(CompletableFuture<Message> future) throws Exception
+    {
+        try
+        {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected the message to fail");
+            return null;
+        }
+        catch (ExecutionException ex)
+        {
+            return (TelerivetAPIException) ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.telerivet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class ParallelScanTest extends TestCase
+{
+    public void testOrderedScanRejectsConflictingSort() throws Exception
+    {
+        TelerivetAPI api = new TelerivetAPI("key", "http://127.0.0.1:1/v1");
+        Project project = api.initProjectById("PJ1");
+
+        JSONObject options = new JSONObject().put("sort", "default").put("sort_dir", "desc");
+        try
+        {
+            project.parallelQueryMessages(options).ordered(true).timeRange(0, 100).forEach(message -> { });
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testOrderedScanMergesWindowsInTimeOrder() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            String query = java.net.URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+            long min = Long.parseLong(query.replaceAll(".*time_created\\[min\\]=(\\d+).*", "$1"));
+            long max = Long.parseLong(query.replaceAll(".*time_created\\[max\\]=(\\d+).*", "$1"));
+            JSONArray data = new JSONArray();
+            for (long t = min; t < max; t++)
+            {
+                data.put(new JSONObject().put("id", "SM" + t).put("time_created", t));
+            }
+            StubServer.respond(exchange, 200, new JSONObject().put("data", data).put("truncated", false).toString());
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            final List<Long> times = new ArrayList<Long>();
+            api.initProjectById("PJ1").parallelQueryMessages(null)
+                .ordered(true).partitions(4).timeRange(0, 40)
+                .forEach(message -> times.add(message.getTimeCreated()));
+
+            assertEquals(40, times.size());
+            for (int i = 0; i < times.size(); i++)
+            {
+                assertEquals(Long.valueOf(i), times.get(i));
+            }
+        }
+    }
+
+    public void testConcurrentScansOnOneInstanceDoNotCancelEachOther() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> {
+            String query = java.net.URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+            long min = Long.parseLong(query.replaceAll(".*time_created\\[min\\]=(\\d+).*", "$1"));
+            long max = Long.parseLong(query.replaceAll(".*time_created\\[max\\]=(\\d+).*", "$1"));
+            String marker = query.contains("marker=") ? query.replaceAll(".*marker=(\\d+).*", "$1") : null;
+            long start = marker != null ? Long.parseLong(marker) : min;
+            long end = Math.min(start + 5, max);
+            StubServer.sleep(20);
+            JSONArray data = new JSONArray();
+            for (long t = start; t < end; t++)
+            {
+                data.put(new JSONObject().put("id", "SM" + t).put("time_created", t));
+            }
+            StubServer.respond(exchange, 200, new JSONObject().put("data", data)
+                .put("truncated", end < max).put("next_marker", "" + end).toString());
+        }))
+        {
+            TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            for (final boolean ordered : new boolean[] { true, false })
+            {
+                final ParallelScan<Message> scan = api.initProjectById("PJ1").parallelQueryMessages(null)
+                    .ordered(ordered).partitions(4).timeRange(0, 80);
+
+                List<CompletableFuture<Integer>> calls = new ArrayList<CompletableFuture<Integer>>();
+                for (int i = 0; i < 2; i++)
+                {
+                    final long delay = i * 100;
+                    calls.add(CompletableFuture.supplyAsync(() -> {
+                        StubServer.sleep(delay);
+                        final List<Message> messages = java.util.Collections.synchronizedList(new ArrayList<Message>());
+                        try
+                        {
+                            scan.forEach(messages::add);
+                        }
+                        catch (java.io.IOException ex)
+                        {
+                            throw new RuntimeException(ex);
+                        }
+                        return messages.size();
+                    }));
+                }
+                for (CompletableFuture<Integer> call : calls)
+                {
+                    assertEquals(Integer.valueOf(80), call.get(30, TimeUnit.SECONDS));
+                }
+            }
+        }
+    }
+}
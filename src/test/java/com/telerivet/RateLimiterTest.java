@@ -0,0 +1,95 @@
+package com.telerivet;
+
+import com.telerivet.exception.TelerivetBulkheadFullException;
+import com.telerivet.exception.TelerivetDeadlineExceededException;
+import com.telerivet.exception.TelerivetRateLimitException;
+import junit.framework.TestCase;
+
+public class RateLimiterTest extends TestCase
+{
+    private static final RateLimiter REJECT_ALL = maxWaitNanos -> -1;
+
+    public void testGroupPermitIsRefundedWhenGlobalLimiterRejects() throws Exception
+    {
+        TelerivetAPI api = new TelerivetAPI("key", "http://127.0.0.1:1/v1", new JavaHttpTransport());
+        TokenBucketRateLimiter queryLimiter = new TokenBucketRateLimiter(0.001, 3);
+        api.setRateLimiter(EndpointGroup.QUERY, queryLimiter);
+        api.setRateLimiter(REJECT_ALL);
+        api.setRateLimitMaxWait(0);
+
+        for (int i = 0; i < 5; i++)
+        {
+            try
+            {
+                api.doRequest("GET", "/projects/PJ1");
+                fail("expected TelerivetRateLimitException");
+            }
+            catch (TelerivetRateLimitException ex)
+            {
+                // expected
+            }
+        }
+
+        assertEquals(3, drain(queryLimiter));
+    }
+
+    public void testNoPermitIsTakenWhenBulkheadRejects() throws Exception
+    {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0.001, 3);
+
+        // the first request holds the only bulkhead permit until the server responds
+        try (StubServer server = new StubServer(exchange -> StubServer.sleep(3000)))
+        {
+            TelerivetAPI slowApi = new TelerivetAPI("key", server.getApiUrl(), new JavaHttpTransport());
+            slowApi.setRateLimiter(limiter);
+            slowApi.setBulkhead(EndpointGroup.QUERY, Bulkhead.builder().setMaxConcurrentCalls(1).build());
+            slowApi.doRequestAsync("GET", "/projects/PJ1");
+
+            for (int i = 0; i < 5; i++)
+            {
+                try
+                {
+                    slowApi.doRequest("GET", "/projects/PJ1");
+                    fail("expected TelerivetBulkheadFullException");
+                }
+                catch (TelerivetBulkheadFullException ex)
+                {
+                    // expected
+                }
+            }
+        }
+
+        assertEquals(2, drain(limiter));
+    }
+
+    public void testNoPermitIsTakenAfterDeadlineExpired() throws Exception
+    {
+        TelerivetAPI api = new TelerivetAPI("key", "http://127.0.0.1:1/v1", new JavaHttpTransport());
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0.001, 3);
+        api.setRateLimiter(limiter);
+
+        Deadline deadline = Deadline.after(1);
+        StubServer.sleep(20);
+        try (Deadline.Scope scope = deadline.enter())
+        {
+            api.doRequest("GET", "/projects/PJ1");
+            fail("expected TelerivetDeadlineExceededException");
+        }
+        catch (TelerivetDeadlineExceededException ex)
+        {
+            // expected
+        }
+
+        assertEquals(3, drain(limiter));
+    }
+
+    private static int drain(RateLimiter limiter)
+    {
+        int count = 0;
+        while (limiter.tryAcquire())
+        {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,85 @@
+package com.telerivet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+public class SharedFileRateLimiterTest extends TestCase
+{
+    private static final int PROCESSES = 4;
+    private static final double PERMITS_PER_SECOND = 50;
+    private static final int BURST_SIZE = 10;
+    private static final long DURATION = 1500; // ms
+
+    /**
+        Spawns several JVMs that take permits from the same file as fast as they can, and
+        checks that together they stay within one budget.
+    */
+    public void testProcessesShareOneBudget() throws Exception
+    {
+        Path file = Files.createTempFile("telerivet-rate", ".bin");
+        try
+        {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            long startTime = System.nanoTime();
+
+            List<Process> processes = new ArrayList<Process>();
+            for (int i = 0; i < PROCESSES; i++)
+            {
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SharedFileRateLimiterTest.class.getName(), file.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+            }
+
+            int total = 0;
+            for (Process process : processes)
+            {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)))
+                {
+                    total += Integer.parseInt(reader.readLine().trim());
+                }
+                assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+                assertEquals(0, process.exitValue());
+            }
+
+            double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+            int maxPermits = BURST_SIZE + (int) Math.ceil(PERMITS_PER_SECOND * elapsedSeconds);
+            int minPermits = BURST_SIZE + (int) (PERMITS_PER_SECOND * DURATION / 1000.0);
+
+            assertTrue("acquired " + total + " permits, more than the shared budget of " + maxPermits, total <= maxPermits);
+            assertTrue("acquired only " + total + " permits, expected at least " + minPermits, total >= minPermits);
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+        Child process: takes permits from the file given as the first argument for
+        DURATION milliseconds and prints the number taken.
+    */
+    public static void main(String[] args) throws Exception
+    {
+        SharedFileRateLimiter limiter = new SharedFileRateLimiter(new File(args[0]).toPath(), PERMITS_PER_SECOND, BURST_SIZE);
+        int count = 0;
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION);
+        while (System.nanoTime() < end)
+        {
+            if (limiter.tryAcquire())
+            {
+                count++;
+            }
+        }
+        System.out.println(count);
+    }
+}
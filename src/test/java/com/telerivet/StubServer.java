@@ -0,0 +1,107 @@
+package com.telerivet;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+    A local HTTP server standing in for the Telerivet API in tests. The request body is
+    read (and decompressed) before the handler is called, and is available from
+    getRequestBody().
+*/
+class StubServer implements Closeable
+{
+    private static final String REQUEST_BODY = "telerivet.requestBody";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    StubServer(final HttpHandler handler) throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            try
+            {
+                InputStream in = exchange.getRequestBody();
+                if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                {
+                    in = new GZIPInputStream(in);
+                }
+                exchange.setAttribute(REQUEST_BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                handler.handle(exchange);
+            }
+            finally
+            {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String getApiUrl()
+    {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    int getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    static String getRequestBody(HttpExchange exchange)
+    {
+        return (String) exchange.getAttribute(REQUEST_BODY);
+    }
+
+    static void respond(HttpExchange exchange, int statusCode, String json) throws IOException
+    {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, statusCode == 304 ? -1 : body.length);
+        if (statusCode != 304)
+        {
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+    }
+
+    static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.telerivet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+public class TelerivetAPIConcurrencyTest extends TestCase
+{
+    private static final int THREADS = 32;
+    private static final int REQUESTS_PER_THREAD = 50;
+
+    /**
+        Many threads start using a new client at the same time, so they race to create its
+        transport and to count their requests.
+    */
+    public void testConcurrentRequestsShareOneTransportAndAreAllCounted() throws Exception
+    {
+        try (StubServer server = new StubServer(exchange -> StubServer.respond(exchange, 200, "{\"id\":\"PJ1\"}")))
+        {
+            final TelerivetAPI api = new TelerivetAPI("key", server.getApiUrl());
+            final CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try
+            {
+                List<Future<HttpTransport>> futures = new ArrayList<Future<HttpTransport>>();
+                for (int i = 0; i < THREADS; i++)
+                {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        HttpTransport transport = api.getTransport();
+                        for (int j = 0; j < REQUESTS_PER_THREAD; j++)
+                        {
+                            api.doRequest("GET", "/projects/PJ1");
+                        }
+                        return transport;
+                    }));
+                }
+                start.countDown();
+
+                HttpTransport transport = api.getTransport();
+                for (Future<HttpTransport> future : futures)
+                {
+                    assertSame(transport, future.get(60, TimeUnit.SECONDS));
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+                api.getTransport().close();
+            }
+
+            assertEquals(THREADS * REQUESTS_PER_THREAD, api.getNumRequests());
+            assertEquals(THREADS * REQUESTS_PER_THREAD, server.getRequestCount());
+        }
+    }
+}